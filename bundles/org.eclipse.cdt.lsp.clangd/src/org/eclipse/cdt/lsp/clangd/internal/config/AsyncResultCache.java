@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.clangd.internal.config;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Caches results which are computed in the background per key. A computation which is still running is shared by
+ * all callers of its key. Empty and failed results are not kept, the next call of their key computes them again.
+ * The class is thread safe.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the results
+ */
+public final class AsyncResultCache<K, V> {
+	private final Map<K, CompletableFuture<Optional<V>>> results = new ConcurrentHashMap<>();
+
+	/**
+	 * @param key     key of the result
+	 * @param compute starts the computation of the result, called if the key is not cached
+	 * @return the cached or started computation of the result
+	 */
+	public CompletableFuture<Optional<V>> get(K key, Supplier<CompletableFuture<Optional<V>>> compute) {
+		Object[] started = new Object[1];
+		var result = results.computeIfAbsent(key, k -> {
+			var computation = compute.get();
+			started[0] = computation;
+			return computation;
+		});
+		if (started[0] == result) {
+			// not registered in computeIfAbsent, the map must not be changed there if the result is complete already:
+			result.whenComplete((value, t) -> {
+				if (t != null || value.isEmpty()) {
+					results.remove(key, result);
+				}
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * Discards the results of the matching keys, computations still running are not cancelled.
+	 *
+	 * @param keys to be discarded
+	 */
+	public void invalidate(Predicate<K> keys) {
+		results.keySet().removeIf(keys);
+	}
+
+	/**
+	 * Discards all results.
+	 */
+	public void clear() {
+		results.clear();
+	}
+
+}
@@ -13,37 +13,159 @@
 
 package org.eclipse.cdt.lsp.clangd.internal.config;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.settings.model.CProjectDescriptionEvent;
 import org.eclipse.cdt.core.settings.model.ICProjectDescriptionListener;
 import org.eclipse.cdt.lsp.clangd.ClangdCProjectDescriptionListener;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.ServiceCaller;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
 
 /**
  * This monitor listens to C project description changes.
+ * The events are handled in the background, so that the thread applying the project description is not blocked:
+ * <ul>
+ * <li>only the latest event of a project is handled, older events which have not been handled yet are dropped,</li>
+ * <li>the events of different projects are handled in parallel by one job per project.</li>
+ * </ul>
  */
-public class CProjectChangeMonitor {
+public class CProjectChangeMonitor implements ICProjectDescriptionListener {
+	/**
+	 * Family of the jobs handling the events.
+	 */
+	public static final Object FAMILY = CProjectChangeMonitor.class;
+	private static final long SLOW_HANDLING = 5000; // ms
+
+	/**
+	 * Counters since the monitor has been created.
+	 *
+	 * @param events     number of received events
+	 * @param coalesced  number of events which replaced an event of the same project that had not been handled yet
+	 * @param handled    number of handled events
+	 * @param maxLatency maximal time in milliseconds between the oldest pending event of a project and the handling
+	 */
+	public record Metrics(long events, long coalesced, long handled, long maxLatency) {
+	}
+
+	private record Pending(CProjectDescriptionEvent event, long queued) {
+	}
+
+	private final ClangdCProjectDescriptionListener handler;
 
-	private final ServiceCaller<ClangdCProjectDescriptionListener> clangdListener = new ServiceCaller<>(getClass(),
-			ClangdCProjectDescriptionListener.class);
+	private final Map<IProject, Pending> pending = new ConcurrentHashMap<>();
+	private final Map<IProject, Job> jobs = new ConcurrentHashMap<>();
+	// guarded by pending:
+	private long events;
+	private long coalesced;
+	private long handled;
+	private long maxLatency;
 
-	private final ICProjectDescriptionListener listener = new ICProjectDescriptionListener() {
+	private final class ProjectJob extends Job {
+		private final IProject project;
+
+		private ProjectJob(IProject project) {
+			super(NLS.bind("Update clangd configuration of {0}", project.getName())); //$NON-NLS-1$
+			this.project = project;
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			var next = pending.remove(project);
+			if (next == null || monitor.isCanceled()) {
+				return Status.OK_STATUS;
+			}
+			handler.handleEvent(next.event());
+			long latency = System.nanoTime() - next.queued();
+			synchronized (pending) {
+				handled++;
+				maxLatency = Math.max(maxLatency, latency);
+			}
+			long millis = TimeUnit.NANOSECONDS.toMillis(latency);
+			if (millis > SLOW_HANDLING) {
+				Platform.getLog(CProjectChangeMonitor.class)
+						.warn(NLS.bind("Project description change of {0} handled after {1} ms", project.getName(), //$NON-NLS-1$
+								millis));
+			}
+			if (!project.exists() && !pending.containsKey(project)) {
+				// the project has been deleted:
+				jobs.remove(project, this);
+			}
+			return Status.OK_STATUS;
+		}
 
 		@Override
-		public void handleEvent(CProjectDescriptionEvent event) {
-			clangdListener.call(c -> c.handleEvent(event));
+		public boolean belongsTo(Object family) {
+			return FAMILY == family;
 		}
 
-	};
+	}
+
+	/**
+	 * Creates a monitor which passes the events to the {@link ClangdCProjectDescriptionListener} service.
+	 */
+	public CProjectChangeMonitor() {
+		ServiceCaller<ClangdCProjectDescriptionListener> clangdListener = new ServiceCaller<>(getClass(),
+				ClangdCProjectDescriptionListener.class);
+		this.handler = event -> clangdListener.call(c -> c.handleEvent(event));
+	}
+
+	/**
+	 * @param handler receives the latest event of a project in the background
+	 */
+	public CProjectChangeMonitor(ClangdCProjectDescriptionListener handler) {
+		this.handler = handler;
+	}
+
+	@Override
+	public void handleEvent(CProjectDescriptionEvent event) {
+		var project = event.getProject();
+		if (project == null) {
+			return;
+		}
+		long now = System.nanoTime();
+		// keeps the time of the oldest event, it is the one waiting longest:
+		var merged = pending.merge(project, new Pending(event, now),
+				(old, latest) -> new Pending(latest.event(), old.queued()));
+		synchronized (pending) {
+			events++;
+			if (merged.queued() != now) {
+				coalesced++;
+			}
+		}
+		jobs.computeIfAbsent(project, ProjectJob::new).schedule();
+	}
+
+	/**
+	 * @return the counters of the handled events, the latency is measured from the oldest event of a project
+	 * until it has been handled
+	 */
+	public Metrics metrics() {
+		synchronized (pending) {
+			return new Metrics(events, coalesced, handled, TimeUnit.NANOSECONDS.toMillis(maxLatency));
+		}
+	}
 
 	public CProjectChangeMonitor start() {
-		CCorePlugin.getDefault().getProjectDescriptionManager().addCProjectDescriptionListener(listener,
+		CCorePlugin.getDefault().getProjectDescriptionManager().addCProjectDescriptionListener(this,
 				CProjectDescriptionEvent.APPLIED);
 		return this;
 	}
 
 	public void stop() {
-		CCorePlugin.getDefault().getProjectDescriptionManager().removeCProjectDescriptionListener(listener);
+		CCorePlugin.getDefault().getProjectDescriptionManager().removeCProjectDescriptionListener(this);
+		pending.clear();
+		jobs.values().forEach(Job::cancel);
+		jobs.clear();
 	}
 
 }
@@ -13,18 +13,19 @@
 
 package org.eclipse.cdt.lsp.clangd.internal.config;
 
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
 
+import org.eclipse.cdt.lsp.clangd.internal.config.ResourceDeltaDispatcher.FileChange;
 import org.eclipse.core.resources.IFile;
-import org.eclipse.core.resources.IResourceChangeEvent;
-import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.WorkspaceJob;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 
 /**
@@ -33,35 +34,22 @@ import org.eclipse.core.runtime.Status;
  */
 public class ClangdConfigFileMonitor {
 	private static final String CLANGD_CONFIG_FILE = ".clangd"; //$NON-NLS-1$
+	private static final long DEBOUNCE_DELAY = 100; // ms
+	private static final long DEBOUNCE_MAX_WAIT = 1000; // ms
 	private final ConcurrentLinkedQueue<IFile> pendingFiles = new ConcurrentLinkedQueue<>();
 	private final IWorkspace workspace;
 	private final ClangdConfigFileChecker checker = new ClangdConfigFileChecker();
+	private final KeyedDebouncer<IFile> debouncer;
 
-	private final IResourceChangeListener listener = new IResourceChangeListener() {
-		@Override
-		public void resourceChanged(IResourceChangeEvent event) {
-			if (event.getDelta() != null && event.getType() == IResourceChangeEvent.POST_CHANGE) {
-				try {
-					event.getDelta().accept(delta -> {
-						if ((delta.getKind() == IResourceDelta.ADDED
-								|| (delta.getFlags() & IResourceDelta.CONTENT) != 0)
-								&& CLANGD_CONFIG_FILE.equals(delta.getResource().getName())) {
-							if (delta.getResource() instanceof IFile file) {
-								pendingFiles.add(file);
-								checkJob.schedule(100);
-							}
-						}
-						return true;
-					});
-				} catch (CoreException e) {
-					Platform.getLog(getClass()).log(e.getStatus());
-				}
-			}
-		}
-	};
+	private final Consumer<List<FileChange>> consumer = this::scheduleChecks;
 
 	public ClangdConfigFileMonitor(IWorkspace workspace) {
 		this.workspace = workspace;
+		this.debouncer = new KeyedDebouncer<>("Clangd configuration file monitor", DEBOUNCE_DELAY, DEBOUNCE_MAX_WAIT, //$NON-NLS-1$
+				files -> {
+					pendingFiles.addAll(files);
+					checkJob.schedule();
+				});
 	}
 
 	private final WorkspaceJob checkJob = new WorkspaceJob("Check .clangd file") { //$NON-NLS-1$
@@ -76,12 +64,22 @@ public class ClangdConfigFileMonitor {
 
 	};
 
+	private void scheduleChecks(List<FileChange> changes) {
+		for (var change : changes) {
+			if (change.kind() == IResourceDelta.ADDED || (change.flags() & IResourceDelta.CONTENT) != 0) {
+				debouncer.schedule(change.file());
+			}
+		}
+	}
+
 	public ClangdConfigFileMonitor start() {
-		workspace.addResourceChangeListener(listener);
+		debouncer.start();
+		ResourceDeltaDispatcher.of(workspace).register(Set.of(CLANGD_CONFIG_FILE), false, consumer);
 		return this;
 	}
 
 	public void stop() {
-		workspace.removeResourceChangeListener(listener);
+		ResourceDeltaDispatcher.of(workspace).unregister(consumer);
+		debouncer.stop();
 	}
 }
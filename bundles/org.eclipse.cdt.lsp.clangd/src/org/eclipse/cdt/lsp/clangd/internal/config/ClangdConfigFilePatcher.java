@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.clangd.internal.config;
+
+import java.io.StringReader;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+
+/**
+ * Sets the <code>CompileFlags.CompilationDatabase</code> entry of the content of a <code>.clangd</code> file.
+ * Only the text of the entry is replaced or inserted, comments and formatting of the other entries are kept.
+ */
+public final class ClangdConfigFilePatcher {
+	private static final String COMPILE_FLAGS = "CompileFlags"; //$NON-NLS-1$
+	private static final String COMPILATION_DATABASE = "CompilationDatabase"; //$NON-NLS-1$
+	private static final String SET_COMPILATION_DB = COMPILE_FLAGS + ": {" + COMPILATION_DATABASE + ": %s}"; //$NON-NLS-1$ //$NON-NLS-2$
+	// paths that can be written as plain scalar without quotes:
+	private static final Pattern PLAIN = Pattern.compile("[\\w./\\\\][\\w./\\\\ -]*[\\w./\\\\-]|[\\w./\\\\]"); //$NON-NLS-1$
+
+	private ClangdConfigFilePatcher() {
+	}
+
+	/**
+	 * @param databasePath project relative path to the directory of the compilation database
+	 * @return the content of a new <code>.clangd</code> file
+	 */
+	public static String create(String databasePath) {
+		return String.format(SET_COMPILATION_DB, scalar(databasePath));
+	}
+
+	/**
+	 * Sets the <code>CompilationDatabase</code> entry in the existing <code>CompileFlags</code> mapping
+	 * of the given content. Blank content is replaced by a new configuration.
+	 *
+	 * @param content      of the <code>.clangd</code> file
+	 * @param databasePath project relative path to the directory of the compilation database
+	 * @return the changed content or an empty optional if the entry is set already
+	 *         or there is no <code>CompileFlags</code> mapping
+	 * @throws YAMLException if the content cannot be parsed
+	 */
+	public static Optional<String> patch(String content, String databasePath) {
+		var root = new Yaml().compose(new StringReader(content));
+		if (root == null) {
+			// empty or only comments:
+			var separator = content.isBlank() || content.endsWith("\n") ? "" : lineSeparator(content); //$NON-NLS-1$ //$NON-NLS-2$
+			return Optional.of((content.isBlank() ? "" : content + separator) + create(databasePath)); //$NON-NLS-1$
+		}
+		var compileFlags = value(root, COMPILE_FLAGS);
+		if (!(compileFlags instanceof MappingNode flags)) {
+			return Optional.empty();
+		}
+		var database = value(flags, COMPILATION_DATABASE);
+		if (database instanceof ScalarNode scalar && scalar.getValue().equals(databasePath)) {
+			return Optional.empty();
+		}
+		var text = new StringBuilder(content);
+		if (database != null) {
+			text.replace(offset(content, database.getStartMark()), offset(content, database.getEndMark()),
+					scalar(databasePath));
+		} else {
+			var entry = COMPILATION_DATABASE + ": " + scalar(databasePath); //$NON-NLS-1$
+			var tuples = flags.getValue();
+			if (flags.getFlowStyle() == DumperOptions.FlowStyle.FLOW) {
+				if (tuples.isEmpty()) {
+					// after the opening brace:
+					text.insert(offset(content, flags.getStartMark()) + 1, entry);
+				} else {
+					text.insert(offset(content, tuples.get(0).getKeyNode().getStartMark()), entry + ", "); //$NON-NLS-1$
+				}
+			} else {
+				// block mappings are not empty, the entry is inserted before the first key with its indentation:
+				var first = tuples.get(0).getKeyNode().getStartMark();
+				text.insert(offset(content, first),
+						entry + lineSeparator(content) + " ".repeat(first.getColumn())); //$NON-NLS-1$
+			}
+		}
+		return Optional.of(text.toString());
+	}
+
+	private static Node value(Node node, String key) {
+		if (node instanceof MappingNode mapping) {
+			for (NodeTuple tuple : mapping.getValue()) {
+				if (tuple.getKeyNode() instanceof ScalarNode scalar && key.equals(scalar.getValue())) {
+					return tuple.getValueNode();
+				}
+			}
+		}
+		return null;
+	}
+
+	private static int offset(String content, Mark mark) {
+		// the marks count code points:
+		return content.offsetByCodePoints(0, mark.getIndex());
+	}
+
+	private static String lineSeparator(String content) {
+		return content.contains("\r\n") ? "\r\n" : "\n"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	private static String scalar(String value) {
+		if (PLAIN.matcher(value).matches()) {
+			return value;
+		}
+		return "'" + value.replace("'", "''") + "'"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+
+}
@@ -15,13 +15,15 @@ package org.eclipse.cdt.lsp.clangd.internal.config;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 import org.eclipse.cdt.lsp.clangd.ClangdConfiguration;
 import org.eclipse.cdt.lsp.clangd.ClangdMetadata;
 import org.eclipse.cdt.lsp.clangd.ClangdOptions;
 import org.eclipse.cdt.lsp.clangd.ClangdQualifier;
+import org.eclipse.cdt.lsp.ResolveProject;
 import org.eclipse.cdt.lsp.config.ConfigurationAccess;
+import org.eclipse.cdt.lsp.util.ProjectPreferenceCache;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ProjectScope;
 import org.eclipse.core.runtime.preferences.DefaultScope;
@@ -31,6 +33,7 @@ import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.eclipse.core.runtime.preferences.OsgiPreferenceMetadataStore;
 import org.eclipse.osgi.util.NLS;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 
 @Component
@@ -42,8 +45,17 @@ public final class ClangdConfigurationAccess extends ConfigurationAccess impleme
 	@Reference
 	private IWorkspace workspace;
 
+	// resolving the options walks the scope chain for each option, keep them until a preference changes:
+	private final ProjectPreferenceCache<ClangdOptions> snapshots;
+
 	public ClangdConfigurationAccess() {
 		super(new ClangdQualifier().get());
+		snapshots = new ProjectPreferenceCache<>(qualifier, this::snapshot);
+	}
+
+	@Deactivate
+	void deactivate() {
+		snapshots.dispose();
 	}
 
 	@Override
@@ -58,14 +70,17 @@ public final class ClangdConfigurationAccess extends ConfigurationAccess impleme
 
 	@Override
 	public ClangdOptions options(Object context) {
-		Optional<ProjectScope> project = projectScope(workspace, context);
+		return snapshots.get(new ResolveProject(workspace).apply(context).orElse(null));
+	}
+
+	private ClangdOptions snapshot(IProject project) {
 		IScopeContext[] scopes;
-		if (project.isPresent()) {
-			scopes = new IScopeContext[] { project.get(), InstanceScope.INSTANCE, DefaultScope.INSTANCE };
+		if (project != null) {
+			scopes = new IScopeContext[] { new ProjectScope(project), InstanceScope.INSTANCE, DefaultScope.INSTANCE };
 		} else {
 			scopes = new IScopeContext[] { InstanceScope.INSTANCE, DefaultScope.INSTANCE };
 		}
-		return new ClangdPreferredOptions(qualifier, scopes, metadata);
+		return ClangdOptionsSnapshot.of(new ClangdPreferredOptions(qualifier, scopes, metadata));
 	}
 
 	@Override
@@ -15,9 +15,13 @@ package org.eclipse.cdt.lsp.clangd.internal.config;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.cdt.core.build.CBuildConfiguration;
 import org.eclipse.cdt.core.build.ICBuildConfiguration;
@@ -34,10 +38,10 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.osgi.util.NLS;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
-import org.yaml.snakeyaml.Yaml;
-import org.yaml.snakeyaml.scanner.ScannerException;
+import org.yaml.snakeyaml.error.YAMLException;
 
 /**
  * Default implementation of the {@link ClangdCProjectDescriptionListener}.
@@ -52,11 +56,14 @@ import org.yaml.snakeyaml.scanner.ScannerException;
 @Component(property = { "service.ranking:Integer=0" })
 public class ClangdConfigurationFileManager implements ClangdCProjectDescriptionListener {
 	public static final String CLANGD_CONFIG_FILE_NAME = ".clangd"; //$NON-NLS-1$
-	private static final String COMPILE_FLAGS = "CompileFlags"; //$NON-NLS-1$
-	private static final String COMPILATTION_DATABASE = "CompilationDatabase"; //$NON-NLS-1$
-	private static final String SET_COMPILATION_DB = COMPILE_FLAGS + ": {" + COMPILATTION_DATABASE + ": %s}"; //$NON-NLS-1$ //$NON-NLS-2$
 	private static final String EMPTY = ""; //$NON-NLS-1$
 
+	private record Written(String databasePath, long modificationStamp) {
+	}
+
+	// the last path written per project:
+	private final Map<IProject, Written> written = new ConcurrentHashMap<>();
+
 	@Reference
 	private ICBuildConfigurationManager build;
 
@@ -146,53 +153,44 @@ public class ClangdConfigurationFileManager implements ClangdCProjectDescription
 
 	/**
 	 * Set the <code>CompilationDatabase</code> entry in the .clangd file in the given project root.
-	 * The file will be created, if it's not existing.
-	 * A ScannerException will be thrown if the configuration file contains invalid yaml syntax.
+	 * The file will be created, if it's not existing. Only the entry is changed, comments and formatting
+	 * of an existing file are kept, see {@link ClangdConfigFilePatcher}.
+	 * The file is not changed if it contains invalid yaml syntax.
+	 * The last written path is recorded per project, so the file is not read again as long as it has not been modified.
 	 *
 	 * @param project to write the .clangd file
 	 * @param databasePath project relative path to .clangd file
-	 * @throws IOException
-	 * @throws ScannerException
-	 * @throws CoreException
 	 */
-	@SuppressWarnings("unchecked")
 	public void setCompilationDatabase(IProject project, String databasePath) {
 		var configFile = project.getFile(CLANGD_CONFIG_FILE_NAME);
+		// deleted and closed projects are forgotten, they are read again when they are opened:
+		written.keySet().removeIf(p -> !p.isAccessible());
+		var last = written.get(project);
+		if (last != null && last.databasePath().equals(databasePath) && configFile.exists()
+				&& last.modificationStamp() == configFile.getModificationStamp()) {
+			return;
+		}
 		try {
-			if (createClangdConfigFile(configFile, project.getDefaultCharset(), databasePath, false)) {
-				return;
-			}
-			Map<String, Object> data = null;
-			Yaml yaml = new Yaml();
-			try (var inputStream = configFile.getContents()) {
-				//throws ScannerException and ParserException:
+			Optional<String> content;
+			if (configFile.exists()) {
+				String current;
+				try (var inputStream = configFile.getContents()) {
+					current = new String(inputStream.readAllBytes(), configFile.getCharset());
+				}
 				try {
-					data = yaml.load(inputStream);
-				} catch (Exception e) {
+					content = ClangdConfigFilePatcher.patch(current, databasePath);
+				} catch (YAMLException e) {
 					Platform.getLog(getClass()).error(e.getMessage(), e);
 					// return, since the file syntax is corrupted. The user has to fix it first:
 					return;
 				}
+			} else {
+				content = Optional.of(ClangdConfigFilePatcher.create(databasePath));
 			}
-			if (data == null) {
-				//empty file: (re)create .clangd file:
-				createClangdConfigFile(configFile, project.getDefaultCharset(), databasePath, true);
-				return;
-			}
-			Map<String, Object> map = (Map<String, Object>) data.get(COMPILE_FLAGS);
-			if (map != null) {
-				var cdb = map.get(COMPILATTION_DATABASE);
-				if (cdb != null && cdb instanceof String) {
-					if (cdb.equals(databasePath)) {
-						return;
-					}
-				}
-				map.put(COMPILATTION_DATABASE, databasePath);
-				data.put(COMPILE_FLAGS, map);
-				try (var yamlWriter = new PrintWriter(configFile.getLocation().toFile())) {
-					yaml.dump(data, yamlWriter);
-				}
+			if (content.isPresent()) {
+				write(configFile, content.get().getBytes(configFile.getCharset()));
 			}
+			written.put(project, new Written(databasePath, configFile.getModificationStamp()));
 		} catch (CoreException e) {
 			Platform.getLog(getClass()).log(e.getStatus());
 		} catch (IOException e) {
@@ -200,23 +198,41 @@ public class ClangdConfigurationFileManager implements ClangdCProjectDescription
 		}
 	}
 
-	private boolean createClangdConfigFile(IFile configFile, String charset, String databasePath,
-			boolean overwriteContent) {
-		if (!configFile.exists() || overwriteContent) {
-			try (final var data = new ByteArrayInputStream(
-					String.format(SET_COMPILATION_DB, databasePath).getBytes(charset))) {
-				if (overwriteContent) {
+	/**
+	 * Replaces the file by a completely written temporary file, so that clangd never reads a partially written file.
+	 * The temporary file is created with the default permissions, the permissions of an existing file are kept.
+	 */
+	private void write(IFile configFile, byte[] content) throws CoreException, IOException {
+		var location = configFile.getLocation();
+		if (location == null) {
+			// not in the local file system:
+			try (final var data = new ByteArrayInputStream(content)) {
+				if (configFile.exists()) {
 					configFile.setContents(data, IResource.KEEP_HISTORY, new NullProgressMonitor());
 				} else {
 					configFile.create(data, false, new NullProgressMonitor());
 				}
-				return true;
-			} catch (CoreException e) {
-				Platform.getLog(getClass()).log(e.getStatus());
-			} catch (IOException e) {
-				Platform.getLog(getClass()).error(e.getMessage(), e);
 			}
+			return;
+		}
+		var target = location.toFile().toPath();
+		// not created with createTempFile, which restricts the permissions to the owner:
+		var temporary = Files.createFile(target.resolveSibling(
+				NLS.bind("{0}.{1}.tmp", CLANGD_CONFIG_FILE_NAME, Long.toUnsignedString(System.nanoTime(), 36)))); //$NON-NLS-1$
+		try {
+			Files.write(temporary, content);
+			if (Files.exists(target)
+					&& Files.getFileStore(target).supportsFileAttributeView(PosixFileAttributeView.class)) {
+				Files.setPosixFilePermissions(temporary, Files.getPosixFilePermissions(target));
+			}
+			try {
+				Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporary);
 		}
-		return false;
+		configFile.refreshLocal(IResource.DEPTH_ZERO, new NullProgressMonitor());
 	}
 }
@@ -15,19 +15,38 @@ package org.eclipse.cdt.lsp.clangd.internal.config;
 
 import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.CProjectNature;
 import org.eclipse.cdt.core.build.ICBuildConfiguration;
 import org.eclipse.cdt.core.build.ICBuildConfigurationManager;
+import org.eclipse.cdt.core.model.CoreModel;
 import org.eclipse.cdt.core.parser.IScannerInfo;
+import org.eclipse.cdt.core.settings.model.CProjectDescriptionEvent;
+import org.eclipse.cdt.core.settings.model.ICProjectDescriptionListener;
 import org.eclipse.cdt.lsp.ExistingResource;
 import org.eclipse.cdt.lsp.clangd.ClangdFallbackFlags;
 import org.eclipse.cdt.lsp.editor.InitialUri;
+import org.eclipse.cdt.lsp.util.CContentTypes;
+import org.eclipse.core.resources.IBuildConfiguration;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.osgi.service.environment.Constants;
+import org.eclipse.osgi.util.NLS;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 
 /**
@@ -35,8 +54,11 @@ import org.osgi.service.component.annotations.Reference;
  * This is needed for Windows OS to allow clangd to determine the system includes in case no compile_commands.json can be found.
  * see also: https://clangd.llvm.org/extensions#compilation-commands
  *
+ * The scanner discovery of a toolchain may take seconds. The flags are therefore computed in the background
+ * and cached per build configuration and toolchain: when the component is activated, when a project is opened
+ * and when the build configuration of a project has been changed. Empty and failed results are not cached.
  */
-@Component
+@Component(immediate = true)
 public final class ClangdFallbackManager implements ClangdFallbackFlags {
 
 	class FallbackFlags {
@@ -56,8 +78,17 @@ public final class ClangdFallbackManager implements ClangdFallbackFlags {
 		}
 	}
 
+	private record Key(IBuildConfiguration configuration, String toolChain) {
+	}
+
 	private static final String ISYSTEM = "-isystem"; //$NON-NLS-1$
+	// bounds the wait of a server start for flags which are still being computed:
+	private static final long MAX_WAIT = 1000; // ms
 	private final boolean isWindows = Constants.OS_WIN32.equals(Platform.getOS());
+	private final AsyncResultCache<Key, FallbackFlags> cache = new AsyncResultCache<>();
+
+	private final IResourceChangeListener listener = this::resourceChanged;
+	private final ICProjectDescriptionListener descriptionListener = event -> update(event.getProject());
 
 	@Reference
 	private ICBuildConfigurationManager build;
@@ -66,11 +97,35 @@ public final class ClangdFallbackManager implements ClangdFallbackFlags {
 	@Reference
 	private IWorkspace workspace;
 
+	@Activate
+	void activate() {
+		if (isWindows) {
+			workspace.addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+			CCorePlugin.getDefault().getProjectDescriptionManager().addCProjectDescriptionListener(descriptionListener,
+					CProjectDescriptionEvent.APPLIED);
+			for (var project : workspace.getRoot().getProjects()) {
+				update(project);
+			}
+		}
+	}
+
+	@Deactivate
+	void deactivate() {
+		if (isWindows) {
+			workspace.removeResourceChangeListener(listener);
+			CCorePlugin.getDefault().getProjectDescriptionManager()
+					.removeCProjectDescriptionListener(descriptionListener);
+			cache.clear();
+		}
+	}
+
 	@Override
 	public FallbackFlags getFallbackFlagsFromInitialUri(URI root) {
 		if (isWindows) {
-			return uri.find(root)//
-					.flatMap(new ExistingResource(workspace))//
+			var existing = new ExistingResource(workspace);
+			// a server per project has the project as root, the shared server uses the initial file:
+			return Optional.ofNullable(root).flatMap(existing)//
+					.or(() -> uri.find(root).flatMap(existing))//
 					.flatMap(this::flags)//
 					.orElse(null);
 		}
@@ -78,10 +133,125 @@ public final class ClangdFallbackManager implements ClangdFallbackFlags {
 	}
 
 	private Optional<FallbackFlags> flags(IResource initial) {
-		return buildConfiguration(initial)//
-				.map(bc -> bc.getScannerInformation(initial))//
-				.map(IScannerInfo::getIncludePaths)//
-				.map(FallbackFlags::new);
+		var configuration = buildConfiguration(initial);
+		var key = configuration.flatMap(this::key);
+		if (key.isEmpty()) {
+			return Optional.empty();
+		}
+		var flags = cache.get(key.get(), () -> compute(configuration.get(), initial));
+		try {
+			return flags.get(MAX_WAIT, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			// the next start of the server uses them:
+			Platform.getLog(ClangdFallbackManager.class).info(NLS.bind(
+					"Fallback flags of {0} are not available yet", initial.getProject().getName())); //$NON-NLS-1$
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			Platform.getLog(ClangdFallbackManager.class).error(e.getMessage(), e);
+		}
+		return Optional.empty();
+	}
+
+	private CompletableFuture<Optional<FallbackFlags>> compute(ICBuildConfiguration configuration,
+			IResource resource) {
+		var flags = new CompletableFuture<Optional<FallbackFlags>>();
+		var job = Job.create(NLS.bind("Compute fallback flags of {0}", resource.getProject().getName()), //$NON-NLS-1$
+				monitor -> {
+					try {
+						var info = resource instanceof IProject project ? scannerInformation(configuration, project)
+								: Optional.ofNullable(configuration.getScannerInformation(resource));
+						// empty flags are not cached, they are computed again at the next start of the server:
+						flags.complete(info.filter(ClangdFallbackManager::hasIncludePaths)//
+								.map(IScannerInfo::getIncludePaths)//
+								.map(FallbackFlags::new));
+					} catch (CoreException | RuntimeException e) {
+						flags.completeExceptionally(e);
+					}
+				});
+		job.setSystem(true);
+		job.schedule();
+		return flags;
+	}
+
+	/**
+	 * Discards the flags of the given project and computes the flags of its active build configuration.
+	 */
+	private void update(IProject project) {
+		if (project == null) {
+			return;
+		}
+		cache.invalidate(k -> project.equals(k.configuration().getProject()));
+		var job = Job.create(NLS.bind("Prepare fallback flags of {0}", project.getName()), monitor -> { //$NON-NLS-1$
+			if (project.isAccessible() && project.hasNature(CProjectNature.C_NATURE_ID)) {
+				prepare(project);
+			}
+		});
+		job.setSystem(true);
+		job.schedule();
+	}
+
+	private void prepare(IProject project) {
+		buildConfiguration(project).ifPresent(configuration -> key(configuration)
+				.ifPresent(key -> cache.get(key, () -> compute(configuration, project))));
+	}
+
+	/**
+	 * @return the scanner information of the first source file of the given project which has include paths,
+	 *         or of the first header file if no source file has them, as representative for the project
+	 */
+	private Optional<IScannerInfo> scannerInformation(ICBuildConfiguration configuration, IProject project)
+			throws CoreException {
+		IScannerInfo[] found = new IScannerInfo[2];
+		project.accept(proxy -> {
+			if (found[0] != null || proxy.isDerived()) {
+				return false;
+			}
+			if (proxy.getType() == IResource.FILE) {
+				var name = proxy.getName();
+				boolean source = CoreModel.isValidSourceUnitName(project, name);
+				// headers are only used if no source file has include paths:
+				if (source || found[1] == null && CContentTypes.isCFileName(name)) {
+					var info = configuration.getScannerInformation(proxy.requestResource());
+					if (hasIncludePaths(info)) {
+						found[source ? 0 : 1] = info;
+					}
+				}
+				return false;
+			}
+			return true;
+		}, IResource.NONE);
+		return Optional.ofNullable(found[0] != null ? found[0] : found[1]);
+	}
+
+	private static boolean hasIncludePaths(IScannerInfo info) {
+		return info != null && info.getIncludePaths() != null && info.getIncludePaths().length > 0;
+	}
+
+	private void resourceChanged(IResourceChangeEvent event) {
+		var delta = event.getDelta();
+		if (delta == null) {
+			return;
+		}
+		for (var child : delta.getAffectedChildren()) {
+			if (child.getResource() instanceof IProject project) {
+				if (child.getKind() == IResourceDelta.ADDED || child.getKind() == IResourceDelta.REMOVED
+						|| (child.getFlags() & (IResourceDelta.OPEN | IResourceDelta.DESCRIPTION)) != 0) {
+					update(project);
+				}
+			}
+		}
+	}
+
+	private Optional<Key> key(ICBuildConfiguration configuration) {
+		try {
+			var toolChain = configuration.getToolChain();
+			return Optional.of(
+					new Key(configuration.getBuildConfiguration(), toolChain != null ? toolChain.getId() : null));
+		} catch (CoreException e) {
+			Platform.getLog(ClangdFallbackManager.class).error(e.getMessage(), e);
+		}
+		return Optional.empty();
 	}
 
 	private Optional<ICBuildConfiguration> buildConfiguration(IResource initial) {
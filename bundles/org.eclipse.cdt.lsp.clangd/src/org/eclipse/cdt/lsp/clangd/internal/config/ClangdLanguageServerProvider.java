@@ -65,6 +65,8 @@ public final class ClangdLanguageServerProvider implements ICLanguageServerProvi
 
 	@Override
 	public boolean isEnabledFor(IProject project) {
+		// the options are a snapshot of the preferences cached per project by the configuration,
+		// an enable service is asked on each call since it may depend on the state of the project:
 		boolean[] enabled = new boolean[1];
 		editorConfiguration.call(c -> enabled[0] = ((LanguageServerEnable) c.options(project)).isEnabledFor(project));
 		return enabled[0];
@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+package org.eclipse.cdt.lsp.clangd.internal.config;
+
+import java.util.List;
+
+import org.eclipse.cdt.lsp.clangd.ClangdOptions;
+
+/**
+ * Immutable clangd options, resolved once from a chain of preference scopes.
+ */
+record ClangdOptionsSnapshot(String clangdPath, boolean useTidy, boolean useBackgroundIndex, String completionStyle,
+		boolean prettyPrint, String queryDriver, List<String> additionalOptions) implements ClangdOptions {
+
+	ClangdOptionsSnapshot {
+		additionalOptions = List.copyOf(additionalOptions);
+	}
+
+	static ClangdOptionsSnapshot of(ClangdOptions options) {
+		return new ClangdOptionsSnapshot(options.clangdPath(), options.useTidy(), options.useBackgroundIndex(),
+				options.completionStyle(), options.prettyPrint(), options.queryDriver(), options.additionalOptions());
+	}
+
+}
@@ -17,22 +17,18 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 
+import org.eclipse.cdt.lsp.PreferredOptions;
 import org.eclipse.cdt.lsp.clangd.ClangdMetadata;
 import org.eclipse.cdt.lsp.clangd.ClangdOptions;
 import org.eclipse.core.runtime.preferences.IScopeContext;
-import org.eclipse.core.runtime.preferences.PreferenceMetadata;
 
-final class ClangdPreferredOptions implements ClangdOptions {
+final class ClangdPreferredOptions extends PreferredOptions implements ClangdOptions {
 
-	private final String qualifier;
-	private final IScopeContext[] scopes;
 	private final ClangdMetadata metadata;
 
 	ClangdPreferredOptions(String qualifier, IScopeContext[] scopes, ClangdMetadata metadata) {
-		this.qualifier = Objects.requireNonNull(qualifier);
-		this.scopes = Objects.requireNonNull(scopes);
+		super(qualifier, scopes);
 		this.metadata = Objects.requireNonNull(metadata);
 	}
 
@@ -75,21 +71,4 @@ final class ClangdPreferredOptions implements ClangdOptions {
 		return Arrays.asList(options.split("\\s+")); //$NON-NLS-1$
 	}
 
-	private String stringValue(PreferenceMetadata<?> meta) {
-		String actual = String.valueOf(meta.defaultValue());
-		for (int i = scopes.length - 1; i >= 0; i--) {
-			IScopeContext scope = scopes[i];
-			String previous = actual;
-			actual = scope.getNode(qualifier).get(meta.identifer(), previous);
-		}
-		return actual;
-	}
-
-	private boolean booleanValue(PreferenceMetadata<Boolean> meta) {
-		return Optional.of(meta)//
-				.map(this::stringValue)//
-				.map(Boolean::valueOf)//
-				.orElseGet(meta::defaultValue);
-	}
-
 }
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.clangd.internal.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Entry of a JSON compilation database ({@code compile_commands.json}), reduced to the members that define
+ * how a file is compiled. A {@code command} string is split into arguments with the quoting rules of the host,
+ * as clang does.
+ *
+ * @param directory working directory of the compilation
+ * @param file      source file as written in the database, may be relative to the directory
+ * @param arguments compile command
+ */
+public record CompilationDatabaseEntry(String directory, String file, List<String> arguments) {
+	private static final boolean WINDOWS = File.separatorChar == '\\';
+
+	/**
+	 * @return the absolute, normalized path of the source file
+	 */
+	public String path() {
+		try {
+			return Path.of(directory).resolve(file).normalize().toString();
+		} catch (InvalidPathException e) {
+			return file;
+		}
+	}
+
+	/**
+	 * Reads the entries of the given compilation database one by one, the stream is not closed.
+	 * The database is never loaded as a whole.
+	 *
+	 * @param input    content of a {@code compile_commands.json}
+	 * @param consumer receives the entries in the order of the database
+	 * @throws IOException if the content cannot be read or is not a JSON array of objects
+	 */
+	public static void read(InputStream input, Consumer<CompilationDatabaseEntry> consumer) throws IOException {
+		var reader = new JsonReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		try {
+			reader.beginArray();
+			while (reader.hasNext()) {
+				consumer.accept(entry(reader));
+			}
+			reader.endArray();
+		} catch (IllegalStateException | NumberFormatException e) {
+			// unexpected structure
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	private static CompilationDatabaseEntry entry(JsonReader reader) throws IOException {
+		String directory = ""; //$NON-NLS-1$
+		String file = ""; //$NON-NLS-1$
+		List<String> arguments = new ArrayList<>();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+			case "directory" -> directory = reader.nextString(); //$NON-NLS-1$
+			case "file" -> file = reader.nextString(); //$NON-NLS-1$
+			case "arguments" -> { //$NON-NLS-1$
+				reader.beginArray();
+				while (reader.hasNext()) {
+					arguments.add(reader.nextString());
+				}
+				reader.endArray();
+			}
+			case "command" -> arguments.addAll(split(reader.nextString(), WINDOWS)); //$NON-NLS-1$
+			default -> reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return new CompilationDatabaseEntry(directory, file, List.copyOf(arguments));
+	}
+
+	/**
+	 * Splits a command into arguments like clang does for a compilation database, arguments are separated by
+	 * unquoted whitespace.
+	 * <ul>
+	 * <li>With the rules of a POSIX shell, single quotes keep their content as is and a backslash escapes the next
+	 * character, also within double quotes.</li>
+	 * <li>With the rules of Windows, backslashes are kept unless they precede a double quote: each pair of them is
+	 * reduced to one, an odd one escapes the double quote.</li>
+	 * </ul>
+	 *
+	 * @param command command line
+	 * @param windows whether the rules of Windows are applied, as on a Windows host
+	 * @return the arguments
+	 */
+	public static List<String> split(String command, boolean windows) {
+		List<String> arguments = new ArrayList<>();
+		var argument = new StringBuilder();
+		boolean inArgument = false;
+		boolean quoted = false;
+		for (int i = 0; i < command.length(); i++) {
+			char c = command.charAt(i);
+			if (Character.isWhitespace(c) && !quoted) {
+				if (inArgument) {
+					arguments.add(argument.toString());
+					argument.setLength(0);
+					inArgument = false;
+				}
+				continue;
+			}
+			inArgument = true;
+			if (windows && c == '\\') {
+				int backslashes = 1;
+				while (i + 1 < command.length() && command.charAt(i + 1) == '\\') {
+					backslashes++;
+					i++;
+				}
+				if (i + 1 < command.length() && command.charAt(i + 1) == '"') {
+					argument.append("\\".repeat(backslashes / 2)); //$NON-NLS-1$
+					if (backslashes % 2 == 1) {
+						argument.append('"');
+						i++;
+					}
+				} else {
+					argument.append("\\".repeat(backslashes)); //$NON-NLS-1$
+				}
+			} else if (windows && c == '"') {
+				quoted = !quoted;
+			} else if (c == '\\' && i + 1 < command.length()) {
+				argument.append(command.charAt(++i));
+			} else if (c == '\'' && !windows) {
+				int end = command.indexOf('\'', i + 1);
+				end = end < 0 ? command.length() : end;
+				argument.append(command, i + 1, end);
+				i = end;
+			} else if (c == '"') {
+				for (i++; i < command.length() && command.charAt(i) != '"'; i++) {
+					if (command.charAt(i) == '\\' && i + 1 < command.length()) {
+						i++;
+					}
+					argument.append(command.charAt(i));
+				}
+			} else {
+				argument.append(c);
+			}
+		}
+		if (inArgument) {
+			arguments.add(argument.toString());
+		}
+		return arguments;
+	}
+
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.clangd.internal.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Fingerprint of the semantic content of a JSON compilation database ({@code compile_commands.json}).
+ * <p>
+ * Each entry is reduced to its directory, file and arguments, see {@link CompilationDatabaseEntry}.
+ * Other members, e.g. {@code output}, formatting and the order of the entries do not contribute,
+ * so a database that has been regenerated with the same compile commands has the same fingerprint.
+ * </p>
+ *
+ * @param entries number of entries
+ * @param low     sum of the first halves of the entry digests
+ * @param high    sum of the second halves of the entry digests
+ */
+public record CompilationDatabaseFingerprint(long entries, long low, long high) {
+
+	/**
+	 * Reads the given compilation database, the stream is not closed.
+	 *
+	 * @param input content of a {@code compile_commands.json}
+	 * @return the fingerprint
+	 * @throws IOException if the content cannot be read or is not a JSON array
+	 */
+	public static CompilationDatabaseFingerprint of(InputStream input) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		long[] sums = new long[3];
+		CompilationDatabaseEntry.read(input, entry -> {
+			var hash = ByteBuffer.wrap(digest.digest(normalized(entry)));
+			// order independent combination of the entries:
+			sums[0]++;
+			sums[1] += hash.getLong();
+			sums[2] += hash.getLong();
+		});
+		return new CompilationDatabaseFingerprint(sums[0], sums[1], sums[2]);
+	}
+
+	private static byte[] normalized(CompilationDatabaseEntry entry) {
+		var normalized = new StringBuilder(entry.directory()).append('\0').append(entry.file());
+		for (var argument : entry.arguments()) {
+			normalized.append('\0').append(argument);
+		}
+		return normalized.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.clangd.internal.config;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.eclipse.cdt.lsp.services.ClangdLanguageServer;
+import org.eclipse.cdt.lsp.services.configuration.CompileCommand;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.lsp4e.LanguageServerWrapper;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Pushes the changed compile commands of the opened documents to a running clangd with
+ * <em>workspace/didChangeConfiguration</em>, so that clangd rebuilds them in place instead of being restarted.
+ * The process, the initialization and the in-memory index are kept.
+ * Files pushed earlier stay in the overlay of clangd after they have been closed, their commands are compared and
+ * pushed again as well, so that a reopened file is not rebuilt with a stale command.
+ * Other files are not pushed: clangd reloads the changed database for them on its own.
+ */
+final class CompilationDatabaseReload {
+	// last compile command pushed per language server, database and file path:
+	private final Map<LanguageServerWrapper, Map<IFile, Map<String, CompileCommand>>> pushed = new ConcurrentHashMap<>();
+
+	/**
+	 * Pushes the compile commands of the given opened documents, and of the documents pushed before from the same
+	 * database, which have been changed in the database.
+	 *
+	 * @param wrapper  language server which has the documents opened
+	 * @param database compilation database
+	 * @param opened   documents opened in the language server
+	 * @return <code>false</code> if the server has to be restarted, e.g. because the entry of a pushed file has been removed
+	 */
+	boolean reload(LanguageServerWrapper wrapper, IFile database, List<IFile> opened) {
+		var serverPushed = pushed.computeIfAbsent(wrapper, w -> new ConcurrentHashMap<>()).computeIfAbsent(database,
+				d -> new ConcurrentHashMap<>());
+		var paths = opened.stream().map(IFile::getLocation).filter(Objects::nonNull).map(IPath::toOSString)
+				.collect(Collectors.toCollection(HashSet::new));
+		// closed files keep the pushed command in clangd:
+		paths.addAll(serverPushed.keySet());
+		Map<String, CompileCommand> current = new HashMap<>();
+		try (var input = database.getContents(true)) {
+			CompilationDatabaseEntry.read(input, entry -> {
+				var path = entry.path();
+				if (paths.contains(path)) {
+					current.put(path, new CompileCommand(entry.directory(), entry.arguments()));
+				}
+			});
+		} catch (CoreException | IOException e) {
+			Platform.getLog(getClass())
+					.warn(NLS.bind("Unable to read {0}: {1}", database.getFullPath(), e.getMessage())); //$NON-NLS-1$
+			return false;
+		}
+		for (var path : paths) {
+			// a pushed command cannot be withdrawn, headers and other files without entry are inferred by clangd:
+			if (serverPushed.containsKey(path) && !current.containsKey(path)) {
+				return false;
+			}
+		}
+		Map<String, CompileCommand> changes = current.entrySet().stream()
+				.filter(e -> !e.getValue().equals(serverPushed.get(e.getKey())))
+				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+		if (changes.isEmpty()) {
+			return true;
+		}
+		wrapper.execute(server -> {
+			ClangdLanguageServer.changeCompilationDatabase(server, changes);
+			return CompletableFuture.completedFuture(null);
+		}).whenComplete((result, t) -> {
+			if (t != null) {
+				// not pushed, the next change of the database pushes them again:
+				Platform.getLog(getClass()).error(NLS.bind("Unable to reload the compile commands in {0}", //$NON-NLS-1$
+						wrapper.serverDefinition.label), t);
+				return;
+			}
+			serverPushed.putAll(changes);
+			Platform.getLog(getClass()).info(NLS.bind("Reloaded the compile commands of {0} files in {1}", //$NON-NLS-1$
+					changes.size(), wrapper.serverDefinition.label));
+		});
+		return true;
+	}
+
+	/**
+	 * Tells whether commands of the given database have been pushed to the given language server.
+	 *
+	 * @param wrapper  language server
+	 * @param database compilation database
+	 * @return <code>true</code> if the language server keeps pushed commands of the database
+	 */
+	boolean hasPushed(LanguageServerWrapper wrapper, IFile database) {
+		var serverPushed = pushed.getOrDefault(wrapper, Map.of()).get(database);
+		return serverPushed != null && !serverPushed.isEmpty();
+	}
+
+	/**
+	 * Forgets the commands pushed to the given language server, e.g. after it has been restarted.
+	 *
+	 * @param wrapper language server
+	 */
+	void forget(LanguageServerWrapper wrapper) {
+		pushed.remove(wrapper);
+	}
+
+}
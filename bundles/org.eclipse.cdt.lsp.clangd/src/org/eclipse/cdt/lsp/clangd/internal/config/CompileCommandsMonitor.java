@@ -13,123 +13,286 @@
 
 package org.eclipse.cdt.lsp.clangd.internal.config;
 
-import java.util.HashSet;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
-import org.eclipse.cdt.lsp.clangd.plugin.ClangdPlugin;
-import org.eclipse.cdt.lsp.util.LspUtils;
+import org.eclipse.cdt.lsp.clangd.internal.config.ResourceDeltaDispatcher.FileChange;
+import org.eclipse.cdt.lsp.util.LanguageServerWrappers;
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IResourceChangeEvent;
-import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.ui.statushandlers.StatusManager;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.lsp4e.LSPEclipseUtils;
+import org.eclipse.lsp4e.LanguageServerWrapper;
+import org.eclipse.osgi.util.NLS;
 
 /**
  * Detects changes (add/delete/content) of JSON Compilation Database Format
  * Specification files ({@value #CDBF_SPECIFICATION_JSON_FILE}) in the
- * {@link IWorkspace workspace} and {@link #restartLanguageServers() restarts
- * the language servers}.
+ * {@link IWorkspace workspace} and updates the language servers which have
+ * documents of the affected projects opened.
+ * clangd reloads a changed compilation database on its own, the opened documents
+ * have to be rebuilt with the new compile commands:
+ * <ul>
+ * <li>when the content of a database has been changed, the changed commands of the opened
+ * documents are {@link CompilationDatabaseReload pushed} to the running servers,</li>
+ * <li>when a database has been added or removed, or pushing is not possible, the servers are
+ * {@link #restartLanguageServers(Set) restarted}.</li>
+ * </ul>
+ * A database whose content has been rewritten with the same entries is ignored,
+ * see {@link CompilationDatabaseFingerprint}. The fingerprints of the existing databases are recorded in the
+ * background when the monitor is started.
  */
 public class CompileCommandsMonitor {
 	private static final String CDBF_SPECIFICATION_JSON_FILE = "compile_commands.json"; //$NON-NLS-1$
 
 	private static final long DEBOUNCE_DELAY = 2000; // ms
+	private static final long DEBOUNCE_MAX_WAIT = 10000; // ms
 
 	private final IWorkspace workspace;
 
+	private final KeyedDebouncer<IProject> debouncer;
+
+	// projects collected since their last restart:
+	private final Set<IProject> affected = new LinkedHashSet<>();
+	// databases whose content has been changed since the last restart of their project:
+	private final Set<IFile> changed = new LinkedHashSet<>();
+	private final Map<IFile, CompilationDatabaseFingerprint> fingerprints = new ConcurrentHashMap<>();
+	private final CompilationDatabaseReload reload = new CompilationDatabaseReload();
+
+	private final Consumer<List<FileChange>> consumer = this::collectAffectedProjects;
+	private final Job fingerprintJob = Job.create("Record compilation database fingerprints", //$NON-NLS-1$
+			this::recordFingerprints);
+
 	/**
-	 * Utility class for postponing the execution of a {@link Runnable} to avoid
-	 * unnecessary or frequent invocation.
+	 * Collects all projects where where compile_commands.json files were
+	 * added/removed and the files whose content has been changed
 	 */
-	private static final class Debouncer {
-		private long debounceDelay;
-		private ScheduledExecutorService scheduler;
-		private ScheduledFuture<?> debounceTimer;
-
-		public Debouncer(long debounceDelay) {
-			this.debounceDelay = debounceDelay;
+	private void collectAffectedProjects(List<FileChange> changes) {
+		Set<IProject> found = new LinkedHashSet<>();
+		for (var change : changes) {
+			var file = change.file();
+			if (change.kind() == IResourceDelta.ADDED || change.kind() == IResourceDelta.REMOVED) {
+				fingerprints.remove(file);
+				synchronized (affected) {
+					affected.add(file.getProject());
+					if (change.kind() == IResourceDelta.ADDED) {
+						// records the fingerprint for later content changes:
+						changed.add(file);
+					}
+				}
+				found.add(file.getProject());
+			} else if ((change.flags() & IResourceDelta.CONTENT) != 0) {
+				synchronized (affected) {
+					changed.add(file);
+				}
+				found.add(file.getProject());
+			}
 		}
+		found.forEach(debouncer::schedule);
+	}
 
-		public void run(Runnable runnable) {
-			if (debounceTimer != null && !debounceTimer.isDone()) {
-				debounceTimer.cancel(true);
-			}
+	public CompileCommandsMonitor(IWorkspace workspace) {
+		this.workspace = workspace;
+		this.debouncer = new KeyedDebouncer<>("Compilation database monitor", DEBOUNCE_DELAY, DEBOUNCE_MAX_WAIT, //$NON-NLS-1$
+				this::restartLanguageServers);
+		fingerprintJob.setSystem(true);
+		fingerprintJob.setPriority(Job.DECORATE);
+	}
 
-			debounceTimer = scheduler.schedule(runnable, debounceDelay, TimeUnit.MILLISECONDS);
-		}
+	/**
+	 * @return the counters of the per project debouncing of the changes
+	 */
+	public KeyedDebouncer.Metrics metrics() {
+		return debouncer.metrics();
+	}
 
-		public void start() {
-			scheduler = Executors.newScheduledThreadPool(1);
+	private void restartLanguageServers(Set<IProject> due) {
+		Set<IProject> projects = new LinkedHashSet<>();
+		Set<IFile> files = new LinkedHashSet<>();
+		synchronized (affected) {
+			for (var project : due) {
+				if (affected.remove(project)) {
+					projects.add(project);
+				}
+			}
+			for (var iterator = changed.iterator(); iterator.hasNext();) {
+				var file = iterator.next();
+				if (due.contains(file.getProject())) {
+					iterator.remove();
+					files.add(file);
+				}
+			}
 		}
-
-		public void stop() {
-			scheduler.shutdown();
+		for (var file : files) {
+			if (hasChangedEntries(file) && !projects.contains(file.getProject()) && !reloadLanguageServers(file)) {
+				projects.add(file.getProject());
+			}
+		}
+		if (!projects.isEmpty()) {
+			restartLanguageServers(projects);
 		}
 	}
 
-	private final Debouncer debouncer;
+	/**
+	 * Pushes the changed compile commands of the given database to the language servers which have documents of
+	 * its project opened, or had commands of the database pushed before.
+	 *
+	 * @param database compilation database whose content has been changed
+	 * @return <code>false</code> if the language servers have to be restarted
+	 */
+	private boolean reloadLanguageServers(IFile database) {
+		var projects = Set.of(database.getProject());
+		for (var wrapper : LanguageServerWrappers.getActive().toList()) {
+			var opened = openedDocuments(wrapper, projects);
+			if ((!opened.isEmpty() || reload.hasPushed(wrapper, database))
+					&& !reload.reload(wrapper, database, opened)) {
+				return false;
+			}
+		}
+		return true;
+	}
 
-	private final IResourceChangeListener listener = new IResourceChangeListener() {
-		@Override
-		public void resourceChanged(IResourceChangeEvent event) {
-			Set<IProject> affectedProjects = collectAffectedProjects(event);
+	/**
+	 * Compares the fingerprint of the given compilation database with the one recorded before.
+	 * CMake rewrites the database on each configure, often with the same entries.
+	 *
+	 * @param file compilation database
+	 * @return <code>true</code> if its entries have been changed or are unknown
+	 */
+	private boolean hasChangedEntries(IFile file) {
+		var current = fingerprint(file);
+		var previous = current != null ? fingerprints.put(file, current) : fingerprints.remove(file);
+		return current == null || !current.equals(previous);
+	}
 
-			if (!affectedProjects.isEmpty()) {
-				debouncer.run(() -> restartLanguageServers());
+	private CompilationDatabaseFingerprint fingerprint(IFile file) {
+		if (file.exists()) {
+			try (var input = file.getContents(true)) {
+				return CompilationDatabaseFingerprint.of(input);
+			} catch (CoreException | IOException | RuntimeException e) {
+				// not a valid database (yet), e.g. while it is being written:
+				Platform.getLog(getClass())
+						.warn(NLS.bind("Unable to read {0}: {1}", file.getFullPath(), e.getMessage())); //$NON-NLS-1$
 			}
 		}
+		return null;
+	}
 
-		/**
-		 * Collects all projects where where compile_commands.json files were
-		 * added/removed/changed
-		 */
-		private Set<IProject> collectAffectedProjects(IResourceChangeEvent event) {
-			Set<IProject> projects = new HashSet<>();
-
-			if (event.getDelta() != null && event.getType() == IResourceChangeEvent.POST_CHANGE) {
-				try {
-					event.getDelta().accept(delta -> {
-						if ((delta.getKind() == IResourceDelta.ADDED || delta.getKind() == IResourceDelta.REMOVED
-								|| (delta.getFlags() & IResourceDelta.CONTENT) != 0)
-								&& CDBF_SPECIFICATION_JSON_FILE.equals(delta.getResource().getName())) {
-							projects.add(delta.getResource().getProject());
-						}
-
-						return true;
-					});
-				} catch (CoreException e) {
-					StatusManager.getManager().handle(e, ClangdPlugin.PLUGIN_ID);
+	/**
+	 * Records the fingerprints of the existing databases, so that the first rewrite of a database with the same
+	 * entries is recognized as well. Like the changes, derived folders are only visited down to
+	 * {@value ResourceDeltaDispatcher#DERIVED_DEPTH} levels of folders.
+	 */
+	private void recordFingerprints(IProgressMonitor monitor) throws CoreException {
+		List<IFile> databases = new ArrayList<>();
+		// folder levels within derived folders, the parents are visited before their children:
+		Map<IPath, Integer> derivedDepths = new HashMap<>();
+		for (var project : workspace.getRoot().getProjects()) {
+			if (!project.isAccessible()) {
+				continue;
+			}
+			project.accept(proxy -> {
+				if (proxy.getType() == IResource.FILE) {
+					if (CDBF_SPECIFICATION_JSON_FILE.equals(proxy.getName())) {
+						databases.add((IFile) proxy.requestResource());
+					}
+					return false;
+				}
+				if (proxy.isTeamPrivateMember()) {
+					return false;
+				}
+				if (proxy.getType() == IResource.PROJECT) {
+					return true;
+				}
+				var path = proxy.requestFullPath();
+				int depth = derivedDepths.getOrDefault(path.removeLastSegments(1), 0);
+				if (depth > 0 || proxy.isDerived()) {
+					depth++;
+					if (depth > ResourceDeltaDispatcher.DERIVED_DEPTH) {
+						return false;
+					}
+					derivedDepths.put(path, depth);
+				}
+				return true;
+			}, IResource.NONE);
+		}
+		for (var database : databases) {
+			if (monitor.isCanceled()) {
+				return;
+			}
+			var fingerprint = fingerprint(database);
+			synchronized (affected) {
+				// a database changed meanwhile is compared with the fingerprint of its previous content or restarts:
+				if (fingerprint != null && !changed.contains(database)) {
+					fingerprints.putIfAbsent(database, fingerprint);
 				}
 			}
-			return projects;
 		}
-	};
+	}
 
-	public CompileCommandsMonitor(IWorkspace workspace) {
-		this.workspace = workspace;
-		this.debouncer = new Debouncer(DEBOUNCE_DELAY);
+	/**
+	 * Restarts the language servers which have opened documents of the given projects.
+	 *
+	 * @param projects whose compilation database has been changed
+	 * @return the restarted language servers
+	 */
+	protected List<LanguageServerWrapper> restartLanguageServers(Set<IProject> projects) {
+		var restarted = LanguageServerWrappers.getActive().filter(w -> !openedDocuments(w, projects).isEmpty())
+				.toList();
+		restarted.forEach(LanguageServerWrapper::restart);
+		if (!restarted.isEmpty()) {
+			// the restarted servers read the databases again, the commands pushed to other servers are kept:
+			restarted.forEach(reload::forget);
+			Platform.getLog(getClass())
+					.info(NLS.bind("Restarted {0} for the changed compilation database of {1}", //$NON-NLS-1$
+							restarted.stream().map(w -> w.serverDefinition.label).toList(),
+							projects.stream().map(IProject::getName).toList()));
+		}
+		return restarted;
 	}
 
-	protected void restartLanguageServers() {
-		LspUtils.getLanguageServers().forEach(w -> {
-			w.restart();
-		});
+	private List<IFile> openedDocuments(LanguageServerWrapper wrapper, Set<IProject> projects) {
+		if (projects.stream().noneMatch(p -> p.isAccessible() && wrapper.canOperate(p))) {
+			return List.of();
+		}
+		List<IFile> opened = new ArrayList<>();
+		for (var buffer : FileBuffers.getTextFileBufferManager().getFileBuffers()) {
+			var file = buffer.getLocation() != null ? FileBuffers.getWorkspaceFileAtLocation(buffer.getLocation())
+					: null;
+			if (file != null && projects.contains(file.getProject())
+					&& wrapper.isConnectedTo(LSPEclipseUtils.toUri(file))) {
+				opened.add(file);
+			}
+		}
+		return opened;
 	}
 
 	public CompileCommandsMonitor start() {
-		workspace.addResourceChangeListener(listener);
 		debouncer.start();
+		// build folders are derived, the databases are usually generated in them or in a folder per configuration:
+		ResourceDeltaDispatcher.of(workspace).register(Set.of(CDBF_SPECIFICATION_JSON_FILE), true, consumer);
+		fingerprintJob.schedule();
 		return this;
 	}
 
 	public void stop() {
-		workspace.removeResourceChangeListener(listener);
+		fingerprintJob.cancel();
+		ResourceDeltaDispatcher.of(workspace).unregister(consumer);
 		debouncer.stop();
 	}
 }
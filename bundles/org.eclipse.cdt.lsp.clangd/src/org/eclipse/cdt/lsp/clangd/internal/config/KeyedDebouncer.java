@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.clangd.internal.config;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * Postpones the handling of requests per key, e.g. per project or per file, to avoid unnecessary or frequent
+ * invocations of an action.
+ * <ul>
+ * <li>Each request for a key postpones the handling of that key by the delay, other keys are not affected.</li>
+ * <li>The handling of a key is not postponed longer than the maximum wait after its first pending request,
+ * so a steady stream of requests cannot starve it.</li>
+ * <li>Keys that become due together are handed over to the action in one batch.</li>
+ * <li>Postponing never interrupts an action that is already running, a request that arrives meanwhile
+ * is handled by a later run.</li>
+ * </ul>
+ * The actions are run one after another on a single daemon thread. The class is thread safe.
+ *
+ * @param <K> type of the keys
+ */
+public final class KeyedDebouncer<K> {
+
+	/**
+	 * Counters since the debouncer has been created.
+	 *
+	 * @param requests   number of requests
+	 * @param coalesced  number of requests merged into a pending request of the same key
+	 * @param handled    number of keys handed over to the action
+	 * @param runs       number of runs of the action
+	 * @param maxLatency maximal time in milliseconds between the first request of a key and the start of its handling
+	 */
+	public record Metrics(long requests, long coalesced, long handled, long runs, long maxLatency) {
+	}
+
+	private final class Pending {
+		private final long first;
+		private long deadline;
+		private ScheduledFuture<?> future;
+
+		private Pending(long first) {
+			this.first = first;
+		}
+	}
+
+	private final String name;
+	private final long delay;
+	private final long maxWait;
+	private final long slack;
+	private final Consumer<Set<K>> action;
+
+	// guarded by pending:
+	private final Map<K, Pending> pending = new HashMap<>();
+	private ScheduledThreadPoolExecutor scheduler;
+	private long requests;
+	private long coalesced;
+	private long handled;
+	private long runs;
+	private long maxLatency;
+
+	/**
+	 * @param name    name of the thread
+	 * @param delay   delay in milliseconds after the last request of a key
+	 * @param maxWait maximal delay in milliseconds after the first pending request of a key
+	 * @param action  handles the due keys
+	 */
+	public KeyedDebouncer(String name, long delay, long maxWait, Consumer<Set<K>> action) {
+		if (delay < 0 || maxWait < delay) {
+			throw new IllegalArgumentException(
+					"Invalid delay " + delay + " or maximum wait " + maxWait); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		this.name = Objects.requireNonNull(name);
+		this.delay = TimeUnit.MILLISECONDS.toNanos(delay);
+		this.maxWait = TimeUnit.MILLISECONDS.toNanos(maxWait);
+		// keys requested by the same event become due within a few milliseconds:
+		this.slack = this.delay / 10;
+		this.action = Objects.requireNonNull(action);
+	}
+
+	/**
+	 * Requests the handling of the given key. Ignored if the debouncer has not been started.
+	 *
+	 * @param key
+	 */
+	public void schedule(K key) {
+		Objects.requireNonNull(key);
+		long now = System.nanoTime();
+		synchronized (pending) {
+			if (scheduler == null) {
+				return;
+			}
+			requests++;
+			var entry = pending.get(key);
+			if (entry == null) {
+				entry = new Pending(now);
+				pending.put(key, entry);
+			} else {
+				coalesced++;
+				// a run that has already started is not interrupted:
+				entry.future.cancel(false);
+			}
+			entry.deadline = Math.min(now + delay, entry.first + maxWait);
+			entry.future = scheduler.schedule(this::run, entry.deadline - now, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Discards a pending request of the given key, a running action is not interrupted.
+	 *
+	 * @param key
+	 */
+	public void cancel(K key) {
+		synchronized (pending) {
+			var entry = pending.remove(key);
+			if (entry != null) {
+				entry.future.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * @return the counters since the debouncer has been created
+	 */
+	public Metrics metrics() {
+		synchronized (pending) {
+			return new Metrics(requests, coalesced, handled, runs, TimeUnit.NANOSECONDS.toMillis(maxLatency));
+		}
+	}
+
+	public void start() {
+		synchronized (pending) {
+			if (scheduler == null) {
+				scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+					var thread = new Thread(runnable, name);
+					thread.setDaemon(true);
+					return thread;
+				});
+				scheduler.setRemoveOnCancelPolicy(true);
+				scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+			}
+		}
+	}
+
+	/**
+	 * Discards the pending requests, a running action is completed.
+	 */
+	public void stop() {
+		synchronized (pending) {
+			if (scheduler != null) {
+				scheduler.shutdown();
+				scheduler = null;
+			}
+			pending.clear();
+		}
+	}
+
+	private void run() {
+		Set<K> due = new LinkedHashSet<>();
+		synchronized (pending) {
+			long now = System.nanoTime();
+			for (var iterator = pending.entrySet().iterator(); iterator.hasNext();) {
+				var entry = iterator.next();
+				var request = entry.getValue();
+				if (request.deadline - now <= slack) {
+					iterator.remove();
+					request.future.cancel(false);
+					due.add(entry.getKey());
+					maxLatency = Math.max(maxLatency, now - request.first);
+				}
+			}
+			if (due.isEmpty()) {
+				// handled together with an earlier key:
+				return;
+			}
+			handled += due.size();
+			runs++;
+		}
+		try {
+			action.accept(due);
+		} catch (RuntimeException e) {
+			Platform.getLog(getClass()).error(e.getMessage(), e);
+		}
+	}
+
+}
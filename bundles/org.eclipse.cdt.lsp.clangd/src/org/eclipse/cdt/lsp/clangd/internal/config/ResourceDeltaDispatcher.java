@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.clangd.internal.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Single resource change listener for the workspace monitors which are interested in files with certain names,
+ * e.g. <code>compile_commands.json</code> or <code>.clangd</code>.
+ * <p>
+ * The delta of an event is traversed once for all consumers. Team private folders are skipped. Derived folders,
+ * e.g. build output, are only traversed for the consumers which ask for them, and only down to
+ * {@value #DERIVED_DEPTH} levels of folders, e.g. <code>build/&lt;configuration&gt;/compile_commands.json</code>
+ * of a core build project. File names are matched by a hash lookup.
+ * The matching changes are handed over to the consumers by a background job, in the order of the events,
+ * so that the notification thread is not blocked by them.
+ * </p>
+ */
+public final class ResourceDeltaDispatcher {
+	private static final Map<IWorkspace, ResourceDeltaDispatcher> INSTANCES = new ConcurrentHashMap<>();
+	/**
+	 * Number of folder levels traversed within a derived folder, including the derived folder itself.
+	 */
+	public static final int DERIVED_DEPTH = 3;
+
+	/**
+	 * Snapshot of a file delta, a delta must not be used after the notification.
+	 *
+	 * @param file  changed file
+	 * @param kind  {@link IResourceDelta#getKind()}
+	 * @param flags {@link IResourceDelta#getFlags()}
+	 */
+	public record FileChange(IFile file, int kind, int flags) {
+	}
+
+	private record Registration(Set<String> names, boolean derived, Consumer<List<FileChange>> consumer) {
+	}
+
+	/**
+	 * @param names   registrations by file name
+	 * @param derived registrations for changes in derived folders by file name
+	 */
+	private record Index(Map<String, List<Registration>> names, Map<String, List<Registration>> derived) {
+	}
+
+	private record Delivery(Consumer<List<FileChange>> consumer, List<FileChange> changes) {
+	}
+
+	private final IWorkspace workspace;
+	// guarded by this:
+	private final List<Registration> registrations = new ArrayList<>();
+	private volatile Index index = new Index(Map.of(), Map.of());
+	private final ConcurrentLinkedQueue<Delivery> deliveries = new ConcurrentLinkedQueue<>();
+
+	private final IResourceChangeListener listener = this::resourceChanged;
+
+	private final Job job = new Job("Dispatch resource changes") { //$NON-NLS-1$
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			Delivery delivery;
+			while ((delivery = deliveries.poll()) != null) {
+				try {
+					delivery.consumer().accept(delivery.changes());
+				} catch (RuntimeException e) {
+					Platform.getLog(ResourceDeltaDispatcher.class).error(e.getMessage(), e);
+				}
+			}
+			return Status.OK_STATUS;
+		}
+
+	};
+
+	private ResourceDeltaDispatcher(IWorkspace workspace) {
+		this.workspace = workspace;
+		job.setSystem(true);
+	}
+
+	/**
+	 * @param workspace
+	 * @return the dispatcher of the given workspace
+	 */
+	public static ResourceDeltaDispatcher of(IWorkspace workspace) {
+		return INSTANCES.computeIfAbsent(Objects.requireNonNull(workspace), ResourceDeltaDispatcher::new);
+	}
+
+	/**
+	 * Registers a consumer for the changes of files with the given names. Changes that only affect markers
+	 * are not reported.
+	 *
+	 * @param names    file names
+	 * @param derived  whether changes in derived folders are reported, down to {@link #DERIVED_DEPTH} levels of folders
+	 * @param consumer receives the changes of an event on a background thread
+	 */
+	public synchronized void register(Set<String> names, boolean derived, Consumer<List<FileChange>> consumer) {
+		if (registrations.isEmpty()) {
+			workspace.addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+		}
+		registrations.add(new Registration(Set.copyOf(names), derived, Objects.requireNonNull(consumer)));
+		reindex();
+	}
+
+	/**
+	 * @param consumer registered before
+	 */
+	public synchronized void unregister(Consumer<List<FileChange>> consumer) {
+		if (registrations.removeIf(r -> r.consumer() == consumer) && registrations.isEmpty()) {
+			workspace.removeResourceChangeListener(listener);
+		}
+		reindex();
+	}
+
+	private void reindex() {
+		Map<String, List<Registration>> names = new HashMap<>();
+		Map<String, List<Registration>> derived = new HashMap<>();
+		for (var registration : registrations) {
+			for (var name : registration.names()) {
+				names.computeIfAbsent(name, n -> new ArrayList<>(1)).add(registration);
+				if (registration.derived()) {
+					derived.computeIfAbsent(name, n -> new ArrayList<>(1)).add(registration);
+				}
+			}
+		}
+		index = new Index(names, derived);
+	}
+
+	private void resourceChanged(IResourceChangeEvent event) {
+		var current = index;
+		if (event.getDelta() == null || current.names().isEmpty()) {
+			return;
+		}
+		Map<Registration, List<FileChange>> matches = new LinkedHashMap<>();
+		visit(current, event.getDelta(), 0, matches);
+		if (!matches.isEmpty()) {
+			matches.forEach((registration, changes) -> deliveries.add(new Delivery(registration.consumer(), changes)));
+			job.schedule();
+		}
+	}
+
+	/**
+	 * @param derivedDepth number of folder levels of the parent within a derived folder, 0 outside of derived folders
+	 */
+	private void visit(Index current, IResourceDelta parent, int derivedDepth,
+			Map<Registration, List<FileChange>> matches) {
+		for (var delta : parent.getAffectedChildren()) {
+			var resource = delta.getResource();
+			if (resource instanceof IFile file) {
+				var names = derivedDepth > 0 ? current.derived() : current.names();
+				match(names.get(file.getName()), file, delta, matches);
+			} else if (resource.isTeamPrivateMember(IResource.NONE)) {
+				continue;
+			} else {
+				int depth = derivedDepth > 0 || resource.isDerived() ? derivedDepth + 1 : 0;
+				// build output may have many changed files, it is only traversed to the depth of the databases:
+				if (depth == 0 || depth <= DERIVED_DEPTH && !current.derived().isEmpty()) {
+					visit(current, delta, depth, matches);
+				}
+			}
+		}
+	}
+
+	private static void match(List<Registration> registrations, IFile file, IResourceDelta delta,
+			Map<Registration, List<FileChange>> matches) {
+		if (registrations != null && delta.getFlags() != IResourceDelta.MARKERS) {
+			for (var registration : registrations) {
+				matches.computeIfAbsent(registration, r -> new ArrayList<>(1))
+						.add(new FileChange(file, delta.getKind(), delta.getFlags()));
+			}
+		}
+	}
+
+}
@@ -77,4 +77,11 @@ public class ClangdPlugin extends AbstractUIPlugin {
 		return workspace;
 	}
 
+	/**
+	 * @return the monitor of the C project description changes, e.g. to read its {@link CProjectChangeMonitor#metrics()}
+	 */
+	public CProjectChangeMonitor getCProjectChangeMonitor() {
+		return cProjectChangeMonitor;
+	}
+
 }
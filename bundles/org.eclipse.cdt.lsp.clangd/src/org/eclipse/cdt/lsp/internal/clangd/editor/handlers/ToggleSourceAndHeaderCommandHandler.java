@@ -14,17 +14,22 @@ package org.eclipse.cdt.lsp.internal.clangd.editor.handlers;
 
 import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import org.eclipse.cdt.lsp.clangd.plugin.ClangdPlugin;
 import org.eclipse.cdt.lsp.plugin.LspPlugin;
 import org.eclipse.cdt.lsp.services.ClangdLanguageServer;
+import org.eclipse.cdt.lsp.util.LanguageServerWrappers;
 import org.eclipse.core.commands.AbstractHandler;
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.core.commands.IHandler;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.Adapters;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.lsp4j.TextDocumentIdentifier;
+import org.eclipse.lsp4j.services.LanguageServer;
 import org.eclipse.ui.IEditorInput;
 import org.eclipse.ui.IEditorPart;
 import org.eclipse.ui.IFileEditorInput;
@@ -50,15 +55,26 @@ public class ToggleSourceAndHeaderCommandHandler extends AbstractHandler impleme
 				.orElse(activeEditor);
 
 		getUri(innerEditor).ifPresent(fileUri -> {
-			IDocument document = org.eclipse.lsp4e.LSPEclipseUtils.getDocument(innerEditor.getEditorInput());
-			org.eclipse.lsp4e.LanguageServers.forDocument(document)
-					.computeFirst(
-							server -> server instanceof ClangdLanguageServer
-									? ((ClangdLanguageServer) server)
-											.switchSourceHeader(new TextDocumentIdentifier(fileUri.toString()))
-									: null)
-					.thenAccept(otherFileUri -> otherFileUri
-							.ifPresent(uri -> openEditor(innerEditor.getEditorSite().getPage(), URI.create(uri))));
+			Function<LanguageServer, CompletableFuture<String>> switchSourceHeader = //
+					server -> server instanceof ClangdLanguageServer
+							? ((ClangdLanguageServer) server)
+									.switchSourceHeader(new TextDocumentIdentifier(fileUri.toString()))
+							: null;
+			// the language server which has the document opened already is resolved from the cache:
+			var wrapper = getProject(innerEditor)
+					.flatMap(project -> LanguageServerWrappers.forDocument(project, fileUri));
+			CompletableFuture<Optional<String>> otherFile;
+			if (wrapper.isPresent()) {
+				otherFile = wrapper.get()
+						.execute(server -> Optional.ofNullable(switchSourceHeader.apply(server))
+								.orElseGet(() -> CompletableFuture.completedFuture(null)))
+						.thenApply(Optional::ofNullable);
+			} else {
+				IDocument document = org.eclipse.lsp4e.LSPEclipseUtils.getDocument(innerEditor.getEditorInput());
+				otherFile = org.eclipse.lsp4e.LanguageServers.forDocument(document).computeFirst(switchSourceHeader);
+			}
+			otherFile.thenAccept(otherFileUri -> otherFileUri
+					.ifPresent(uri -> openEditor(innerEditor.getEditorSite().getPage(), URI.create(uri))));
 		});
 
 		return null;
@@ -83,6 +99,13 @@ public class ToggleSourceAndHeaderCommandHandler extends AbstractHandler impleme
 		}
 	}
 
+	private static Optional<IProject> getProject(IEditorPart editor) {
+		if (editor.getEditorInput() instanceof IFileEditorInput fileInput) {
+			return Optional.of(fileInput.getFile().getProject());
+		}
+		return Optional.empty();
+	}
+
 	private static void openEditor(IWorkbenchPage page, URI fileUri) {
 		page.getWorkbenchWindow().getShell().getDisplay().asyncExec(() -> {
 			try {
@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.eclipse.cdt.lsp.ResourceLocations;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ResourceLocationsTest {
+	private static final int PROJECTS = 20;
+	private static final int LOOKUPS = 2_000;
+
+	@TempDir
+	private File TEMPORARY;
+	private final List<IProject> projects = new ArrayList<>();
+	private final IWorkspace workspace = ResourcesPlugin.getWorkspace();
+	private final ResourceLocations locations = ResourceLocations.of(workspace);
+	private IProject project;
+
+	@BeforeEach
+	void create(TestInfo info) throws CoreException {
+		project = TestUtils.createCProject(TestUtils.getName(info));
+		projects.add(project);
+	}
+
+	@AfterEach
+	void delete() throws CoreException {
+		for (var p : projects) {
+			TestUtils.deleteProject(p);
+		}
+	}
+
+	@Test
+	public void testLinkedFolder() throws CoreException, IOException {
+		var target = new File(TEMPORARY, "linked");
+		target.mkdirs();
+		var external = new File(target, "main.cpp");
+		external.createNewFile();
+		assertTrue(locations.findExisting(external.toURI()).isEmpty());
+
+		IFolder link = project.getFolder("link");
+		link.createLink(target.toURI(), IResource.NONE, new NullProgressMonitor());
+		Optional<IResource> found = locations.findExisting(external.toURI());
+		assertEquals(Optional.of(link.getFile("main.cpp")), found);
+		assertEquals(Optional.of(link), locations.findExisting(target.toURI()));
+
+		link.delete(true, new NullProgressMonitor());
+		assertTrue(locations.findExisting(external.toURI()).isEmpty());
+	}
+
+	@Test
+	public void testLinkedFile() throws CoreException, IOException {
+		var external = new File(TEMPORARY, "linked.h");
+		external.createNewFile();
+		IFile link = project.getFile("link.h");
+		link.createLink(external.toURI(), IResource.NONE, new NullProgressMonitor());
+		assertEquals(Optional.of(link), locations.findExisting(external.toURI()));
+		assertEquals(Optional.of(link), locations.findFile(external.toURI()));
+	}
+
+	@Test
+	public void testFileHandle() {
+		IFile absent = project.getFile("absent.c");
+		assertEquals(Optional.of(absent), locations.findFile(absent.getLocationURI()));
+		assertTrue(locations.findExisting(absent.getLocationURI()).isEmpty());
+	}
+
+	@Test
+	public void testClosedProject() throws CoreException {
+		IFile file = project.getFile(".project");
+		assertEquals(Optional.of(file), locations.findExisting(file.getLocationURI()));
+		project.close(new NullProgressMonitor());
+		assertTrue(locations.findExisting(file.getLocationURI()).isEmpty());
+		assertEquals(Optional.of(file), locations.findFile(file.getLocationURI()));
+		project.open(new NullProgressMonitor());
+		assertEquals(Optional.of(file), locations.findExisting(file.getLocationURI()));
+	}
+
+	@Test
+	public void testNestedProject() throws CoreException {
+		IFolder folder = project.getFolder("nested");
+		folder.create(true, true, new NullProgressMonitor());
+		var description = workspace.newProjectDescription(project.getName() + "Nested");
+		description.setLocation(folder.getLocation());
+		var nested = workspace.getRoot().getProject(description.getName());
+		nested.create(description, new NullProgressMonitor());
+		nested.open(new NullProgressMonitor());
+		projects.add(0, nested);
+		IFile file = nested.getFile(".project");
+		// same result as the workspace, which returns the resource with the shortest path first:
+		var expected = Arrays.stream(workspace.getRoot().findFilesForLocationURI(file.getLocationURI()))
+				.map(IResource.class::cast).filter(IResource::exists).findFirst();
+		assertTrue(expected.isPresent());
+		assertEquals(expected, locations.findExisting(file.getLocationURI()));
+	}
+
+	@Test
+	public void testWorkspaceRoot() {
+		assertEquals(Optional.of(workspace.getRoot()), locations.findExisting(workspace.getRoot().getLocationURI()));
+	}
+
+	@Test
+	public void testFolderWithLinkRemoved() throws CoreException, IOException {
+		var target = new File(TEMPORARY, "linked");
+		target.mkdirs();
+		var external = new File(target, "main.cpp");
+		external.createNewFile();
+		IFolder folder = project.getFolder("folder");
+		folder.create(true, true, new NullProgressMonitor());
+		IFolder link = folder.getFolder("link");
+		link.createLink(target.toURI(), IResource.NONE, new NullProgressMonitor());
+		assertEquals(Optional.of(link.getFile("main.cpp")), locations.findExisting(external.toURI()));
+
+		folder.delete(true, new NullProgressMonitor());
+		assertTrue(locations.findExisting(external.toURI()).isEmpty());
+	}
+
+	/**
+	 * Compares the lookups of the index with the lookups of the workspace for 10k files, creating them takes a while.
+	 * Enabled with <code>-Dorg.eclipse.cdt.lsp.test.benchmark=true</code>.
+	 */
+	@Test
+	void testBenchmark10k() throws CoreException, IOException {
+		assumeTrue(Boolean.getBoolean("org.eclipse.cdt.lsp.test.benchmark"));
+		benchmark(10_000);
+	}
+
+	/**
+	 * Same as {@link #testBenchmark10k()} for 100k files.
+	 */
+	@Test
+	void testBenchmark100k() throws CoreException, IOException {
+		assumeTrue(Boolean.getBoolean("org.eclipse.cdt.lsp.test.benchmark"));
+		benchmark(100_000);
+	}
+
+	private void benchmark(int files) throws CoreException, IOException {
+		var uris = new ArrayList<URI>();
+		for (int p = 0; p < PROJECTS; p++) {
+			var current = TestUtils.createCProject(project.getName() + p);
+			projects.add(current);
+			// half of the files are linked from outside the workspace:
+			var target = new File(TEMPORARY, current.getName());
+			for (int f = 0; f < files / PROJECTS; f++) {
+				var directory = f % 2 == 0 ? current.getLocation().append("src").toFile() : target;
+				var file = new File(directory, "file" + f + ".cpp");
+				file.getParentFile().mkdirs();
+				Files.writeString(file.toPath(), "");
+				uris.add(file.toURI());
+			}
+			current.getFolder("link").createLink(IPath.fromOSString(target.getAbsolutePath()), IResource.NONE,
+					new NullProgressMonitor());
+			current.refreshLocal(IResource.DEPTH_INFINITE, new NullProgressMonitor());
+		}
+		for (int e = 0; e < LOOKUPS / 10; e++) {
+			uris.add(new File(TEMPORARY, "external" + e + ".h").toURI());
+		}
+		var sample = new ArrayList<URI>();
+		for (int i = 0; i < LOOKUPS; i++) {
+			sample.add(uris.get((int) ((long) i * 7919 % uris.size())));
+		}
+		var expected = new ArrayList<Optional<IResource>>();
+		for (var uri : sample) {
+			var root = workspace.getRoot();
+			expected.add(Arrays.stream(root.findContainersForLocationURI(uri)).map(IResource.class::cast)
+					.filter(IResource::exists).findFirst().or(() -> Arrays.stream(root.findFilesForLocationURI(uri))
+							.map(IResource.class::cast).filter(IResource::exists).findFirst()));
+		}
+
+		var actual = new ArrayList<Optional<IResource>>();
+		for (var uri : sample) {
+			actual.add(locations.findExisting(uri));
+		}
+		assertEquals(expected, actual);
+	}
+
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.test.internal.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.cdt.lsp.internal.server.CLanguageServerPool;
+import org.eclipse.cdt.lsp.internal.server.CLanguageServerPool.Instance;
+import org.eclipse.cdt.lsp.internal.server.CLanguageServerPool.Key;
+import org.junit.jupiter.api.Test;
+
+class CLanguageServerPoolTest {
+	private static final long IDLE_TIMEOUT = TimeUnit.MINUTES.toNanos(15);
+
+	private long now;
+	// servers which have opened documents:
+	private final Set<Key> opened = new HashSet<>();
+	private final CLanguageServerPool pool = new CLanguageServerPool(() -> now, i -> !opened.contains(i.key()));
+
+	@Test
+	void testIdleServersAreStopped() {
+		var a = start("a");
+		var b = start("b");
+		now += TimeUnit.MINUTES.toNanos(10);
+		b.used();
+		now += TimeUnit.MINUTES.toNanos(6);
+		assertEquals(List.of(a.key()), stopUnused(8));
+	}
+
+	@Test
+	void testLeastRecentlyUsedServersBeyondLimitAreStopped() {
+		var a = start("a");
+		var b = start("b");
+		var c = start("c");
+		now++;
+		a.used();
+		now++;
+		c.used();
+		assertEquals(List.of(b.key()), stopUnused(2));
+		assertEquals(List.of(b.key(), a.key()), stopUnused(1));
+	}
+
+	@Test
+	void testServersWithOpenedDocumentsAreKept() {
+		var a = start("a");
+		var b = start("b");
+		now++;
+		b.used();
+		opened.add(a.key());
+		// the least recently used server is in use, the next one is stopped instead:
+		assertEquals(List.of(b.key()), stopUnused(1));
+		now += IDLE_TIMEOUT + 1;
+		assertEquals(List.of(b.key()), stopUnused(8));
+	}
+
+	@Test
+	void testStoppedServersAreNotCounted() {
+		var a = start("a");
+		start("b");
+		pool.stopped(a.key());
+		assertEquals(List.of(), stopUnused(1));
+	}
+
+	private Instance start(String name) {
+		var key = new Key(List.of("clangd"), URI.create("file:///" + name));
+		// the key stands for the server connection:
+		return pool.started(key, key);
+	}
+
+	private List<Key> stopUnused(int maxInstances) {
+		List<Key> stopped = new ArrayList<>();
+		pool.stopUnused(now, maxInstances, IDLE_TIMEOUT).forEach(i -> stopped.add(i.key()));
+		return stopped;
+	}
+
+}
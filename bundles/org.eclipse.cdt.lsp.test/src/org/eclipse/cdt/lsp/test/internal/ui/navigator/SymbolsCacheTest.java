@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.test.internal.ui.navigator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.cdt.lsp.internal.ui.navigator.SymbolsCache;
+import org.junit.jupiter.api.Test;
+
+class SymbolsCacheTest {
+
+	@Test
+	void testEvictsLeastRecentlyUsedEntry() {
+		var cache = new SymbolsCache<String, AtomicLong>(2, 100, AtomicLong::get);
+		cache.computeIfAbsent("a", k -> new AtomicLong(1));
+		cache.computeIfAbsent("b", k -> new AtomicLong(1));
+		// touch "a", so that "b" becomes the least recently used entry:
+		assertNotNull(cache.get("a"));
+		cache.computeIfAbsent("c", k -> new AtomicLong(1));
+		assertEquals(2, cache.size());
+		assertNull(cache.peek("b"));
+		assertNotNull(cache.peek("a"));
+		assertNotNull(cache.peek("c"));
+		assertEquals(1, cache.evictionCount());
+	}
+
+	@Test
+	void testEvictsByWeight() {
+		var cache = new SymbolsCache<String, AtomicLong>(10, 10, AtomicLong::get);
+		cache.computeIfAbsent("a", k -> new AtomicLong(4));
+		cache.computeIfAbsent("b", k -> new AtomicLong(4));
+		assertEquals(8, cache.weight());
+		// GIVEN "b" grows after its symbols have been fetched:
+		cache.peek("b").set(8);
+		// WHEN its weight is recomputed:
+		cache.reweigh("b");
+		// THEN "a" has been evicted to stay within the weight limit:
+		assertNull(cache.peek("a"));
+		assertEquals(8, cache.weight());
+	}
+
+	@Test
+	void testKeepsSingleOverweightEntry() {
+		var cache = new SymbolsCache<String, AtomicLong>(10, 10, AtomicLong::get);
+		cache.computeIfAbsent("huge", k -> new AtomicLong(100));
+		assertNotNull(cache.peek("huge"));
+		assertEquals(100, cache.weight());
+	}
+
+	@Test
+	void testStatistics() {
+		var cache = new SymbolsCache<String, AtomicLong>(10, 10, AtomicLong::get);
+		assertNull(cache.get("a"));
+		cache.computeIfAbsent("a", k -> new AtomicLong(1));
+		cache.computeIfAbsent("a", k -> new AtomicLong(1));
+		assertNotNull(cache.get("a"));
+		assertEquals(2, cache.hitCount());
+		assertEquals(2, cache.missCount());
+		assertEquals(0, cache.evictionCount());
+		cache.remove("a");
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.weight());
+	}
+
+}
@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.test.internal.ui.navigator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.cdt.lsp.internal.ui.navigator.SymbolsDiff;
+import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.lsp4e.outline.SymbolsModel.DocumentSymbolWithURI;
+import org.eclipse.lsp4j.DocumentSymbol;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.SymbolKind;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.TreeItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SymbolsDiffTest {
+	private static final URI FILE = URI.create("file:///test.cpp");
+	private static final String ROOT = "root";
+	private static final int SYMBOLS = 5000;
+
+	private Shell shell;
+	private TreeViewer viewer;
+	private final Map<Object, Object[]> children = new HashMap<>();
+
+	@BeforeEach
+	void setUp() {
+		shell = new Shell(Display.getDefault());
+		viewer = new TreeViewer(shell, SWT.NONE);
+		viewer.setUseHashlookup(true);
+		viewer.setContentProvider(new ITreeContentProvider() {
+
+			@Override
+			public Object[] getElements(Object inputElement) {
+				return new Object[] { ROOT };
+			}
+
+			@Override
+			public Object[] getChildren(Object parentElement) {
+				return children.getOrDefault(parentElement, new Object[0]);
+			}
+
+			@Override
+			public Object getParent(Object element) {
+				return null;
+			}
+
+			@Override
+			public boolean hasChildren(Object element) {
+				return getChildren(element).length > 0;
+			}
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		shell.dispose();
+	}
+
+	@Test
+	void testUnchangedSymbolsNeedNoOperations() {
+		var diff = SymbolsDiff.compute(symbols(0, 100, ""), symbols(0, 100, ""));
+		assertTrue(diff.isEmpty());
+	}
+
+	@Test
+	void testSymbolsAreMatchedByNameAndKind() {
+		var shown = symbols(0, 3, "");
+		var fetched = symbols(0, 3, "");
+		// detail changed:
+		fetched[1] = symbol(1, "int");
+		// new symbol at the end:
+		fetched = Arrays.copyOf(fetched, 4);
+		fetched[3] = symbol(3, "");
+		var diff = SymbolsDiff.compute(shown, fetched);
+		assertEquals(2, diff.operations());
+		assertTrue(diff.removals().isEmpty());
+	}
+
+	@Test
+	void testRemovedSymbols() {
+		var shown = symbols(0, 5, "");
+		var fetched = new Object[] { shown[0], shown[2], shown[4] };
+		var diff = SymbolsDiff.compute(shown, fetched);
+		assertEquals(Arrays.asList(shown[1], shown[3]), diff.removals().stream()
+				.sorted((a, b) -> label(a).compareTo(label(b))).toList());
+		assertEquals(2, diff.operations());
+	}
+
+	@Test
+	void testApplyToViewer() {
+		var shown = symbols(0, 10, "");
+		show(shown);
+		var fetched = symbols(2, 12, "");
+		fetched[0] = symbol(2, "changed");
+		SymbolsDiff.compute(shown, fetched).applyTo(viewer, ROOT);
+		assertArrayEquals(fetched, treeChildren());
+	}
+
+	@Test
+	void testReorderedSymbolsAreMoved() {
+		var shown = symbols(0, 4, "");
+		show(shown);
+		var fetched = new Object[] { shown[1], shown[2], shown[3], shown[0] };
+		var diff = SymbolsDiff.compute(shown, fetched);
+		assertEquals(1, diff.operations());
+		assertTrue(diff.removals().isEmpty());
+		diff.applyTo(viewer, ROOT);
+		assertArrayEquals(fetched, treeChildren());
+	}
+
+	@Test
+	void testLargeTranslationUnit() {
+		var shown = symbols(0, SYMBOLS, "");
+		show(shown);
+		var fetched = symbols(0, SYMBOLS, "");
+		// edit: one symbol changed, one removed, one added
+		fetched[SYMBOLS / 2] = symbol(SYMBOLS / 2, "changed");
+		fetched[SYMBOLS - 1] = symbol(SYMBOLS, "");
+		var diff = SymbolsDiff.compute(shown, fetched);
+		assertEquals(3, diff.operations());
+		diff.applyTo(viewer, ROOT);
+		assertArrayEquals(fetched, treeChildren());
+	}
+
+	@Test
+	void testLineInsertedAtTopOfLargeTranslationUnit() {
+		var shown = symbols(0, SYMBOLS, "");
+		show(shown);
+		// all symbols are shifted by one line:
+		var fetched = new Object[SYMBOLS];
+		for (int i = 0; i < SYMBOLS; i++) {
+			fetched[i] = symbol("symbol" + i, i + 1, "", List.of());
+		}
+		var diff = SymbolsDiff.compute(shown, fetched);
+		// all symbols are updated in place, none is removed or inserted:
+		assertEquals(SYMBOLS, diff.operations());
+		assertTrue(diff.removals().isEmpty());
+		diff.applyTo(viewer, ROOT);
+		assertArrayEquals(fetched, treeChildren());
+	}
+
+	@Test
+	void testExpansionIsKeptWhenLinesAreShifted() {
+		var shown = new Object[] { symbol("ns", 0, "", List.of(documentSymbol("member", 1))) };
+		show(shown);
+		viewer.setExpandedState(shown[0], true);
+		var fetched = new Object[] { symbol("ns", 1, "", List.of(documentSymbol("member", 2))) };
+		children.put(fetched[0], childrenOf(fetched[0]));
+		SymbolsDiff.compute(shown, fetched).applyTo(viewer, ROOT);
+		assertArrayEquals(fetched, treeChildren());
+		assertTrue(viewer.getExpandedState(fetched[0]));
+		var item = viewer.getTree().getItem(0).getItem(0);
+		assertArrayEquals(childrenOf(fetched[0]), Arrays.stream(item.getItems()).map(TreeItem::getData).toArray());
+	}
+
+	private void show(Object[] elements) {
+		children.put(ROOT, elements);
+		for (var element : elements) {
+			children.put(element, childrenOf(element));
+		}
+		viewer.setInput(new Object());
+		viewer.setExpandedState(ROOT, true);
+		viewer.refresh();
+	}
+
+	private Object[] treeChildren() {
+		var root = viewer.getTree().getItem(0);
+		var items = root.getItems();
+		var result = new Object[items.length];
+		for (int i = 0; i < items.length; i++) {
+			result[i] = items[i].getData();
+		}
+		return result;
+	}
+
+	private static Object[] symbols(int from, int to, String detail) {
+		var result = new Object[to - from];
+		for (int i = from; i < to; i++) {
+			result[i - from] = symbol(i, detail);
+		}
+		return result;
+	}
+
+	private static DocumentSymbolWithURI symbol(int line, String detail) {
+		return symbol("symbol" + line, line, detail, List.of());
+	}
+
+	private static DocumentSymbolWithURI symbol(String name, int line, String detail, List<DocumentSymbol> children) {
+		var symbol = documentSymbol(name, line);
+		symbol.setDetail(detail);
+		symbol.setChildren(children);
+		return new DocumentSymbolWithURI(symbol, FILE);
+	}
+
+	private static DocumentSymbol documentSymbol(String name, int line) {
+		var range = new Range(new Position(line, 0), new Position(line, 10));
+		return new DocumentSymbol(name, SymbolKind.Function, range, range);
+	}
+
+	private static Object[] childrenOf(Object element) {
+		var symbolWithUri = (DocumentSymbolWithURI) element;
+		return symbolWithUri.symbol.getChildren().stream().map(child -> new DocumentSymbolWithURI(child, FILE))
+				.toArray();
+	}
+
+	private static String label(Object element) {
+		return ((DocumentSymbolWithURI) element).symbol.getName();
+	}
+
+}
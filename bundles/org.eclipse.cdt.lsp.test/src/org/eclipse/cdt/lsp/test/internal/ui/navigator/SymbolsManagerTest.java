@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.test.internal.ui.navigator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.eclipse.cdt.core.model.CoreModel;
+import org.eclipse.cdt.core.model.ITranslationUnit;
+import org.eclipse.cdt.lsp.internal.ui.navigator.SymbolsManager;
+import org.eclipse.cdt.lsp.test.TestUtils;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.lsp4e.outline.SymbolsModel.DocumentSymbolWithURI;
+import org.eclipse.lsp4j.DocumentSymbol;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.SymbolKind;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+class SymbolsManagerTest {
+	private final SymbolsManager manager = new SymbolsManager();
+	private final BlockingQueue<Set<URI>> invalidations = new LinkedBlockingQueue<>();
+	private final Consumer<Set<URI>> listener = invalidations::add;
+	private IProject project;
+	private IFile file;
+
+	@BeforeEach
+	void setUp(TestInfo testInfo) throws CoreException {
+		project = TestUtils.createCProject(TestUtils.getName(testInfo));
+		file = project.getFile("main.c");
+		file.create(new ByteArrayInputStream("int main() {}\n".getBytes()), true, null);
+		manager.addInvalidationListener(listener);
+	}
+
+	@AfterEach
+	void cleanUp() throws CoreException {
+		manager.removeInvalidationListener(listener);
+		TestUtils.deleteProject(project);
+	}
+
+	@Test
+	void testInvalidationContinuesWhenOneViewerIsDisposed() throws CoreException, InterruptedException {
+		// GIVEN two viewers showing the symbols of the file:
+		manager.connect();
+		manager.connect();
+		try {
+			manager.getCompileUnitElements(translationUnit());
+			// WHEN one of them is disposed:
+			manager.disconnect();
+			// THEN changes of the file are still reported:
+			assertInvalidatedOnChange();
+		} finally {
+			manager.disconnect();
+		}
+	}
+
+	@Test
+	void testInvalidationRestartsWhenViewerIsReopened() throws CoreException, InterruptedException {
+		manager.connect();
+		manager.disconnect();
+		// the viewer is opened again:
+		manager.connect();
+		try {
+			manager.getCompileUnitElements(translationUnit());
+			assertInvalidatedOnChange();
+		} finally {
+			manager.disconnect();
+		}
+	}
+
+	@Test
+	void testChildrenOfUncachedUnit() {
+		var range = new Range(new Position(0, 0), new Position(2, 1));
+		var parent = new DocumentSymbol("ns", SymbolKind.Namespace, range, range);
+		parent.setChildren(List.of(new DocumentSymbol("member", SymbolKind.Function, range, range)));
+		var uri = file.getLocationURI();
+		// the unit is not cached, e.g. it has been evicted while its symbols are shown:
+		var children = manager.getChildren(new DocumentSymbolWithURI(parent, uri));
+		assertArrayEquals(new Object[] { new DocumentSymbolWithURI(parent.getChildren().get(0), uri) }, children);
+	}
+
+	private ITranslationUnit translationUnit() {
+		return (ITranslationUnit) CoreModel.getDefault().create(file);
+	}
+
+	private void assertInvalidatedOnChange() throws CoreException, InterruptedException {
+		invalidations.clear();
+		file.setContents(new ByteArrayInputStream("int main() { return 0; }\n".getBytes()), true, false, null);
+		var uris = invalidations.poll(5, TimeUnit.SECONDS);
+		assertNotNull(uris);
+		assertTrue(uris.contains(file.getLocationURI()));
+	}
+
+}
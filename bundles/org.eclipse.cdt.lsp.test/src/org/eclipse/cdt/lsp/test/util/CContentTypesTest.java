@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.test.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.lsp.util.CContentTypes;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.content.IContentType;
+import org.junit.jupiter.api.Test;
+
+class CContentTypesTest {
+	private static final String EXTENSION = "cdtlsptest";
+
+	@Test
+	void testCFileNames() {
+		assertTrue(CContentTypes.isCFileName("main.c"));
+		assertTrue(CContentTypes.isCFileName("main.cpp"));
+		assertTrue(CContentTypes.isCFileName("main.h"));
+		assertTrue(CContentTypes.isCFileName("main.hpp"));
+	}
+
+	@Test
+	void testNonCFileNames() {
+		assertFalse(CContentTypes.isCFileName("readme.txt"));
+		assertFalse(CContentTypes.isCFileName("Makefile"));
+		assertFalse(CContentTypes.isCFileName(""));
+		assertFalse(CContentTypes.isCFileName(null));
+	}
+
+	@Test
+	void testCFileUri() {
+		assertTrue(CContentTypes.isCFile(URI.create("file:///tmp/dir.txt/main.cpp")));
+		assertFalse(CContentTypes.isCFile(URI.create("file:///tmp/dir.cpp/readme.txt")));
+		assertFalse(CContentTypes.isCFile(URI.create("mailto:main.cpp")));
+	}
+
+	@Test
+	void testAssociationChangeInvalidates() throws CoreException {
+		var source = Platform.getContentTypeManager().getContentType(CCorePlugin.CONTENT_TYPE_CXXSOURCE);
+		assertFalse(CContentTypes.isCFileName("main." + EXTENSION));
+		source.addFileSpec(EXTENSION, IContentType.FILE_EXTENSION_SPEC);
+		try {
+			assertTrue(CContentTypes.isCFileName("main." + EXTENSION));
+		} finally {
+			source.removeFileSpec(EXTENSION, IContentType.FILE_EXTENSION_SPEC);
+		}
+		assertFalse(CContentTypes.isCFileName("main." + EXTENSION));
+	}
+
+}
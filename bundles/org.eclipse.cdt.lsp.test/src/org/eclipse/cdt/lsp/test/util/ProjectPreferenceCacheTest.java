@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.test.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.cdt.lsp.LspQualifier;
+import org.eclipse.cdt.lsp.test.TestUtils;
+import org.eclipse.cdt.lsp.util.ProjectPreferenceCache;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ProjectScope;
+import org.eclipse.core.runtime.CoreException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+class ProjectPreferenceCacheTest {
+	private static final String KEY = "cache.test";
+	private final String qualifier = new LspQualifier().get();
+	private final AtomicInteger computations = new AtomicInteger();
+	private ProjectPreferenceCache<Integer> cache;
+	private IProject project;
+
+	@BeforeEach
+	public void setUp(TestInfo testInfo) throws CoreException {
+		project = TestUtils.createCProject(TestUtils.getName(testInfo));
+		cache = new ProjectPreferenceCache<>(qualifier, p -> computations.incrementAndGet());
+	}
+
+	@AfterEach
+	public void cleanUp() throws CoreException {
+		cache.dispose();
+		new ProjectScope(project).getNode(qualifier).remove(KEY);
+		TestUtils.deleteProject(project);
+	}
+
+	@Test
+	public void testValueIsComputedOnce() {
+		assertEquals(1, cache.get(project));
+		assertEquals(1, cache.get(project));
+		assertEquals(1, computations.get());
+	}
+
+	@Test
+	public void testProjectPreferenceChangeInvalidates() {
+		cache.get(project);
+		new ProjectScope(project).getNode(qualifier).putBoolean(KEY, true);
+		assertEquals(2, cache.get(project));
+	}
+
+	@Test
+	public void testProjectCloseInvalidates() throws CoreException {
+		cache.get(project);
+		project.close(null);
+		project.open(null);
+		assertEquals(2, cache.get(project));
+	}
+
+	@Test
+	public void testNullValueIsNotCached() {
+		var failing = new ProjectPreferenceCache<Integer>(qualifier, p -> {
+			computations.incrementAndGet();
+			return null;
+		});
+		try {
+			assertNull(failing.get(project));
+			assertNull(failing.get(project));
+			assertEquals(2, computations.get());
+		} finally {
+			failing.dispose();
+		}
+	}
+
+}
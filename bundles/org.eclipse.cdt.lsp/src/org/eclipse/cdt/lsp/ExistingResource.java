@@ -12,7 +12,6 @@
 package org.eclipse.cdt.lsp;
 
 import java.net.URI;
-import java.util.Arrays;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
@@ -30,20 +29,7 @@ public final class ExistingResource implements Function<URI, Optional<IResource>
 
 	@Override
 	public Optional<IResource> apply(URI uri) {
-		return forContainer(uri).or(() -> forFile(uri));
+		return ResourceLocations.of(workspace).findExisting(uri);
 	}
 
-	private Optional<IResource> forContainer(URI uri) {
-		return Arrays.stream(workspace.getRoot().findContainersForLocationURI(uri))//
-				.map(IResource.class::cast)//
-				.filter(c -> c.exists())//
-				.findFirst();
-	}
-
-	private Optional<IResource> forFile(URI uri) {
-		return Arrays.stream(workspace.getRoot().findFilesForLocationURI(uri))//
-				.map(IResource.class::cast)//
-				.filter(c -> c.exists())//
-				.findFirst();
-	}
 }
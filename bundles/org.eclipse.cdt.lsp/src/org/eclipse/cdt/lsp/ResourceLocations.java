@@ -0,0 +1,326 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+package org.eclipse.cdt.lsp;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * Index of the locations of the projects and linked resources of a workspace, used to map a file system location
+ * to a resource without asking the workspace to scan all projects and links on each call.
+ * The locations are kept in a prefix tree of path segments, so a lookup costs one step per segment.
+ * <ul>
+ * <li>A location that is not covered by any project or link, e.g. an external header, is answered right away.</li>
+ * <li>A location that is covered by exactly one project or link is resolved relative to it.</li>
+ * <li>A location that is covered by several, e.g. nested projects or overlapping links, is passed to the workspace
+ * so that the result is the same as before.</li>
+ * </ul>
+ * The index is rebuilt lazily after projects have been added, removed, opened, closed or moved and after linked
+ * resources have been created or removed.
+ */
+public final class ResourceLocations {
+	private static final Map<IWorkspace, ResourceLocations> INSTANCES = new ConcurrentHashMap<>();
+	private static final boolean CASE_SENSITIVE = !Platform.OS_WIN32.equals(Platform.getOS())
+			&& !Platform.OS_MACOSX.equals(Platform.getOS());
+
+	private static final class Node {
+		private final Map<String, Node> children = new HashMap<>();
+		private final List<IResource> roots = new ArrayList<>(1);
+	}
+
+	private static final class Index {
+		private final Node root = new Node();
+		// workspace paths of the indexed links and of their parents, to find the removals that affect the index:
+		private final Set<IPath> links = new HashSet<>();
+		private final URI workspaceRoot;
+
+		private Index(URI workspaceRoot) {
+			this.workspaceRoot = workspaceRoot;
+		}
+	}
+
+	private record Candidate(IResource root, List<String> relative) {
+	}
+
+	private final IWorkspace workspace;
+	private final AtomicLong generation = new AtomicLong();
+	private volatile Index index;
+
+	private final IResourceChangeListener listener = event -> {
+		var delta = event.getDelta();
+		if (delta == null) {
+			invalidate();
+			return;
+		}
+		try {
+			delta.accept(this::affectsRoots);
+		} catch (CoreException e) {
+			Platform.getLog(getClass()).error(e.getMessage(), e);
+			invalidate();
+		}
+	};
+
+	private ResourceLocations(IWorkspace workspace) {
+		this.workspace = workspace;
+		workspace.addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+	}
+
+	/**
+	 * @param workspace
+	 * @return the location index of the given workspace
+	 */
+	public static ResourceLocations of(IWorkspace workspace) {
+		return INSTANCES.computeIfAbsent(Objects.requireNonNull(workspace), ResourceLocations::new);
+	}
+
+	/**
+	 * Returns an existing container or file at the given location, containers are preferred.
+	 *
+	 * @param uri location
+	 * @return the resource or an empty optional
+	 */
+	public Optional<IResource> findExisting(URI uri) {
+		var current = index();
+		if (uri != null && current.workspaceRoot != null && sameLocation(current.workspaceRoot, uri)) {
+			return Optional.of(workspace.getRoot());
+		}
+		var candidates = candidates(current, uri);
+		if (candidates == null) {
+			return Arrays.stream(workspace.getRoot().findContainersForLocationURI(uri))//
+					.map(IResource.class::cast)//
+					.filter(IResource::exists)//
+					.findFirst()//
+					.or(() -> Arrays.stream(workspace.getRoot().findFilesForLocationURI(uri))//
+							.map(IResource.class::cast)//
+							.filter(IResource::exists)//
+							.findFirst());
+		}
+		if (candidates.isEmpty()) {
+			return Optional.empty();
+		}
+		var candidate = candidates.get(0);
+		if (candidate.relative().isEmpty()) {
+			return Optional.of(candidate.root()).filter(IResource::exists);
+		}
+		if (candidate.root() instanceof IContainer container) {
+			var member = container.findMember(path(candidate.relative()));
+			if (member != null && sameLocation(member, uri)) {
+				return Optional.of(member);
+			}
+			if (member == null && CASE_SENSITIVE) {
+				return Optional.empty();
+			}
+		}
+		// shadowed by a nested link or spelled in a different case, let the workspace decide:
+		return findFiles(uri).stream().filter(IResource::exists).map(IResource.class::cast).findFirst();
+	}
+
+	/**
+	 * Returns the handle of the first file at the given location, the file does not need to exist.
+	 *
+	 * @param uri location
+	 * @return the file handle or an empty optional
+	 */
+	public Optional<IFile> findFile(URI uri) {
+		var candidates = candidates(index(), uri);
+		if (candidates != null) {
+			if (candidates.isEmpty()) {
+				return Optional.empty();
+			}
+			var candidate = candidates.get(0);
+			if (candidate.relative().isEmpty()) {
+				// a file only if it has been linked:
+				return Optional.of(candidate.root()).filter(IFile.class::isInstance).map(IFile.class::cast);
+			}
+			if (candidate.root() instanceof IContainer container) {
+				var file = container.getFile(path(candidate.relative()));
+				if (sameLocation(file, uri)) {
+					return Optional.of(file);
+				}
+			}
+		}
+		return findFiles(uri).stream().findFirst();
+	}
+
+	/**
+	 * Discards the index, it is rebuilt on next access.
+	 */
+	public void invalidate() {
+		generation.incrementAndGet();
+		index = null;
+	}
+
+	private List<IFile> findFiles(URI uri) {
+		return Arrays.asList(workspace.getRoot().findFilesForLocationURI(uri));
+	}
+
+	/**
+	 * @return the projects or links covering the given location, <code>null</code> if the workspace has to be asked
+	 */
+	private List<Candidate> candidates(Index current, URI uri) {
+		if (uri == null || uri.isOpaque() || uri.getPath() == null) {
+			return null;
+		}
+		var segments = segments(uri.normalize());
+		var node = current.root.children.get(key(uri));
+		List<Candidate> candidates = new ArrayList<>(1);
+		int i = 0;
+		while (node != null) {
+			for (var root : node.roots) {
+				candidates.add(new Candidate(root, segments.subList(i, segments.size())));
+			}
+			if (candidates.size() > 1) {
+				// nested projects or overlapping links:
+				return null;
+			}
+			node = i < segments.size() ? node.children.get(normalize(segments.get(i))) : null;
+			i++;
+		}
+		return candidates;
+	}
+
+	private Index index() {
+		var current = index;
+		if (current == null) {
+			long started = generation.get();
+			current = new Index(workspace.getRoot().getLocationURI());
+			for (var project : workspace.getRoot().getProjects()) {
+				// closed projects keep their location, they are needed for file handles:
+				add(current, project);
+				if (project.isAccessible()) {
+					try {
+						var root = current;
+						project.accept(proxy -> visitLinks(root, proxy), IResource.NONE);
+					} catch (CoreException e) {
+						Platform.getLog(getClass()).error(e.getMessage(), e);
+					}
+				}
+			}
+			if (generation.get() == started) {
+				// not changed meanwhile:
+				index = current;
+			}
+		}
+		return current;
+	}
+
+	private boolean visitLinks(Index root, IResourceProxy proxy) {
+		if (proxy.getType() == IResource.PROJECT) {
+			return true;
+		}
+		if (proxy.isLinked()) {
+			var link = proxy.requestResource();
+			add(root, link);
+			for (var path = link.getFullPath(); path.segmentCount() > 1; path = path.removeLastSegments(1)) {
+				root.links.add(path);
+			}
+			// links within linked folders are located by the nearest link:
+			return proxy.getType() == IResource.FOLDER;
+		}
+		// virtual folders do not have a location but may contain links:
+		return proxy.getType() == IResource.FOLDER;
+	}
+
+	private void add(Index root, IResource resource) {
+		var uri = resource.getLocationURI();
+		if (uri == null || uri.isOpaque() || uri.getPath() == null) {
+			return;
+		}
+		var node = root.root.children.computeIfAbsent(key(uri), k -> new Node());
+		for (var segment : segments(uri.normalize())) {
+			node = node.children.computeIfAbsent(normalize(segment), k -> new Node());
+		}
+		node.roots.add(resource);
+	}
+
+	private boolean affectsRoots(IResourceDelta delta) {
+		var resource = delta.getResource();
+		switch (resource.getType()) {
+		case IResource.ROOT:
+			return true;
+		case IResource.PROJECT:
+			if (delta.getKind() != IResourceDelta.CHANGED
+					|| (delta.getFlags() & (IResourceDelta.OPEN | IResourceDelta.DESCRIPTION)) != 0) {
+				invalidate();
+				return false;
+			}
+			return true;
+		default:
+			if (delta.getKind() == IResourceDelta.REMOVED ? isIndexed(resource)
+					: resource.isLinked() && (delta.getKind() == IResourceDelta.ADDED
+							|| (delta.getFlags() & IResourceDelta.REPLACED) != 0)) {
+				invalidate();
+				return false;
+			}
+			// only folders may contain links:
+			return resource.getType() == IResource.FOLDER && delta.getKind() != IResourceDelta.REMOVED;
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the given resource is an indexed link or contains one
+	 */
+	private boolean isIndexed(IResource resource) {
+		var current = index;
+		return current != null && current.links.contains(resource.getFullPath());
+	}
+
+	private static boolean sameLocation(IResource resource, URI uri) {
+		var location = resource.getLocationURI();
+		return location != null && sameLocation(location, uri);
+	}
+
+	private static boolean sameLocation(URI location, URI uri) {
+		return !uri.isOpaque() && uri.getPath() != null && key(location).equals(key(uri))
+				&& segments(location.normalize()).equals(segments(uri.normalize()));
+	}
+
+	private static IPath path(List<String> segments) {
+		return IPath.fromOSString(String.join("/", segments)); //$NON-NLS-1$
+	}
+
+	private static String key(URI uri) {
+		return uri.getScheme() + "://" + Objects.toString(uri.getAuthority(), ""); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private static List<String> segments(URI uri) {
+		return Arrays.stream(uri.getPath().split("/")).filter(s -> !s.isEmpty()).toList(); //$NON-NLS-1$
+	}
+
+	private static String normalize(String segment) {
+		return CASE_SENSITIVE ? segment : segment.toLowerCase(Locale.ROOT);
+	}
+
+}
@@ -12,19 +12,12 @@
 
 package org.eclipse.cdt.lsp.internal.editor;
 
-import org.eclipse.cdt.codan.core.model.IProblemReporter;
 import org.eclipse.cdt.lsp.plugin.LspPlugin;
 import org.eclipse.cdt.lsp.server.ICLanguageServerProvider;
 import org.eclipse.cdt.lsp.util.LspUtils;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourcesPlugin;
-import org.eclipse.core.resources.WorkspaceJob;
-import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Platform;
-import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.content.IContentType;
 import org.eclipse.ui.IEditorDescriptor;
 import org.eclipse.ui.IEditorInput;
@@ -89,7 +82,7 @@ public class CEditorAssociationOverride implements IEditorAssociationOverride {
 		if (resource != null) {
 			boolean enabled = cLanguageServerProvider.isEnabledFor(resource.getProject());
 			if (enabled) {
-				deleteCodanMarkers(resource);
+				CodanMarkerCleaner.getDefault().clean(resource);
 			}
 			return enabled;
 		}
@@ -97,24 +90,6 @@ public class CEditorAssociationOverride implements IEditorAssociationOverride {
 		return LspUtils.isFileOpenedInLspEditor(editorInput);
 	}
 
-	private void deleteCodanMarkers(IResource resource) {
-		var wsJob = new WorkspaceJob("Remove codan markers") { //$NON-NLS-1$
-			@Override
-			public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
-				try {
-					resource.deleteMarkers(IProblemReporter.GENERIC_CODE_ANALYSIS_MARKER_TYPE, true,
-							IResource.DEPTH_INFINITE);
-				} catch (CoreException e) {
-					Platform.getLog(CEditorAssociationOverride.class).log(e.getStatus());
-				}
-				return Status.OK_STATUS;
-			}
-		};
-		wsJob.setRule(resource);
-		wsJob.setSystem(true);
-		wsJob.schedule();
-	}
-
 	private boolean isNoCElement(IContentType contentType) {
 		if (contentType == null) {
 			return true;
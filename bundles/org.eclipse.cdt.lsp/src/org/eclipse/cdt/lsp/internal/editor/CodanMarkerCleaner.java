@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.internal.editor;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.cdt.codan.core.model.IProblemReporter;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Removes the Codan markers of projects which are served by the language server.
+ * Requests are coalesced: the markers of a project are removed once by a single job in one workspace operation,
+ * further requests for resources of the project are ignored until Codan reports a problem in the project again.
+ * The workspace is listened to from the first request until the cleaner is {@link #stop() stopped}.
+ */
+public final class CodanMarkerCleaner implements IResourceChangeListener {
+	private static final CodanMarkerCleaner INSTANCE = new CodanMarkerCleaner();
+	private static final String MARKER_TYPE = IProblemReporter.GENERIC_CODE_ANALYSIS_MARKER_TYPE;
+
+	private final Set<IProject> pending = new LinkedHashSet<>();
+	private final Set<IProject> clean = ConcurrentHashMap.newKeySet();
+	private volatile boolean listening;
+
+	private final Job job = new Job("Remove codan markers") { //$NON-NLS-1$
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			Set<IProject> batch;
+			synchronized (pending) {
+				batch = Set.copyOf(pending);
+				pending.clear();
+			}
+			var workspace = ResourcesPlugin.getWorkspace();
+			var subMonitor = SubMonitor.convert(monitor, batch.size());
+			for (var project : batch) {
+				if (subMonitor.isCanceled()) {
+					clean.remove(project);
+					continue;
+				}
+				if (!project.isAccessible()) {
+					clean.remove(project);
+					subMonitor.worked(1);
+					continue;
+				}
+				try {
+					workspace.run(m -> project.deleteMarkers(MARKER_TYPE, true, IResource.DEPTH_INFINITE), project,
+							IWorkspace.AVOID_UPDATE, subMonitor.newChild(1));
+				} catch (CoreException e) {
+					clean.remove(project);
+					Platform.getLog(CodanMarkerCleaner.class).log(e.getStatus());
+				}
+			}
+			return Status.OK_STATUS;
+		}
+
+	};
+
+	private CodanMarkerCleaner() {
+		job.setSystem(true);
+	}
+
+	public static CodanMarkerCleaner getDefault() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Requests the removal of the Codan markers of the project of the given resource.
+	 *
+	 * @param resource
+	 */
+	void clean(IResource resource) {
+		var project = resource.getProject();
+		if (project == null) {
+			return;
+		}
+		startListening();
+		// marked before the markers are deleted, so that markers added meanwhile reset the state:
+		if (!clean.add(project)) {
+			return;
+		}
+		synchronized (pending) {
+			pending.add(project);
+		}
+		job.schedule();
+	}
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		if (event.getType() != IResourceChangeEvent.POST_CHANGE) {
+			// pre close or pre delete:
+			if (event.getResource() instanceof IProject project) {
+				clean.remove(project);
+			}
+			return;
+		}
+		if (clean.isEmpty()) {
+			return;
+		}
+		for (var delta : event.findMarkerDeltas(MARKER_TYPE, true)) {
+			if (delta.getKind() == IResourceDelta.ADDED || delta.getKind() == IResourceDelta.CHANGED) {
+				clean.remove(delta.getResource().getProject());
+			}
+		}
+	}
+
+	/**
+	 * Stops listening to the workspace and cancels the pending removals, e.g. when the bundle is stopped.
+	 */
+	public synchronized void stop() {
+		if (listening) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+			listening = false;
+		}
+		job.cancel();
+		synchronized (pending) {
+			pending.clear();
+		}
+		clean.clear();
+	}
+
+	private void startListening() {
+		if (listening) {
+			return;
+		}
+		synchronized (this) {
+			if (!listening) {
+				ResourcesPlugin.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE
+						| IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+				listening = true;
+			}
+		}
+	}
+
+}
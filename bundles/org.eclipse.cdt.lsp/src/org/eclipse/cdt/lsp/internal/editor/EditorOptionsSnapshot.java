@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+package org.eclipse.cdt.lsp.internal.editor;
+
+import org.eclipse.cdt.lsp.editor.EditorOptions;
+import org.eclipse.cdt.lsp.editor.LanguageServerEnable;
+import org.eclipse.core.resources.IProject;
+
+/**
+ * Immutable editor options, resolved once from a chain of preference scopes.
+ *
+ * @param enable optional service deciding the enablement, may be <code>null</code>
+ */
+public record EditorOptionsSnapshot(boolean preferLspEditor, boolean formatOnSave, boolean formatAllLines,
+		boolean formatEditedLines, LanguageServerEnable enable) implements EditorOptions, LanguageServerEnable {
+
+	public static EditorOptionsSnapshot of(EditorPreferredOptions options, LanguageServerEnable enable) {
+		return new EditorOptionsSnapshot(options.preferLspEditor(), options.formatOnSave(), options.formatAllLines(),
+				options.formatEditedLines(), enable);
+	}
+
+	@Override
+	public boolean isEnabledFor(IProject project) {
+		if (enable != null) {
+			// may depend on project properties, e.g. natures, which are not part of the snapshot:
+			return enable.isEnabledFor(project);
+		}
+		return preferLspEditor;
+	}
+
+}
@@ -22,7 +22,8 @@ import org.eclipse.lsp4e.format.IFormatRegionsProvider;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 
-@Component(property = { "serverDefinitionId:String=org.eclipse.cdt.lsp.server" })
+@Component(property = { "serverDefinitionId:String=org.eclipse.cdt.lsp.server",
+		"serverDefinitionId:String=org.eclipse.cdt.lsp.server.project" })
 public class FormatOnSave implements IFormatRegionsProvider {
 
 	@Reference
@@ -0,0 +1,333 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+package org.eclipse.cdt.lsp.internal.editor;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IEditorReference;
+import org.eclipse.ui.IPartListener2;
+import org.eclipse.ui.IURIEditorInput;
+import org.eclipse.ui.IWindowListener;
+import org.eclipse.ui.IWorkbenchPartReference;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PartInitException;
+import org.eclipse.ui.PlatformUI;
+
+/**
+ * Index of the opened editors, maintained by part listeners. Maps the input and the URI of each opened editor to the
+ * editor id, so that looking up the editor of a file does not have to walk all editor references.
+ * Only editors whose part has been created are indexed. Lazily loaded editors are kept aside by the name they have
+ * been persisted with, a lookup which is not answered by the index only restores the input of an editor with the name
+ * of the looked up file to confirm it. They are indexed once their part has been created.
+ * Until the listeners have been installed in the UI thread, the editor references are matched the same way.
+ */
+public final class OpenEditorRegistry {
+	private static final OpenEditorRegistry INSTANCE = new OpenEditorRegistry();
+
+	private record Entry(IEditorInput input, URI uri, String editorId) {
+	}
+
+	// insertion ordered, the first opened editor of an input wins:
+	private final Map<IEditorReference, Entry> editors = new LinkedHashMap<>();
+	private final Map<URI, IEditorReference> byUri = new LinkedHashMap<>();
+	private final Map<IEditorInput, IEditorReference> byInput = new LinkedHashMap<>();
+	// editors which have not been restored yet, by their persisted name:
+	private final Map<IEditorReference, String> unrestored = new LinkedHashMap<>();
+	private final Map<String, Set<IEditorReference>> unrestoredByName = new LinkedHashMap<>();
+	private volatile boolean installed;
+
+	private final IPartListener2 partListener = new IPartListener2() {
+
+		@Override
+		public void partOpened(IWorkbenchPartReference partRef) {
+			if (partRef instanceof IEditorReference reference) {
+				register(reference);
+			}
+		}
+
+		@Override
+		public void partVisible(IWorkbenchPartReference partRef) {
+			// a lazily loaded editor is restored when it becomes visible:
+			if (partRef instanceof IEditorReference reference && isUnrestored(reference)) {
+				register(reference);
+			}
+		}
+
+		@Override
+		public void partInputChanged(IWorkbenchPartReference partRef) {
+			if (partRef instanceof IEditorReference reference) {
+				unregister(reference);
+				register(reference);
+			}
+		}
+
+		@Override
+		public void partClosed(IWorkbenchPartReference partRef) {
+			if (partRef instanceof IEditorReference reference) {
+				unregister(reference);
+			}
+		}
+	};
+
+	private final IWindowListener windowListener = new IWindowListener() {
+
+		@Override
+		public void windowOpened(IWorkbenchWindow window) {
+			install(window);
+		}
+
+		@Override
+		public void windowClosed(IWorkbenchWindow window) {
+			window.getPartService().removePartListener(partListener);
+			for (var page : window.getPages()) {
+				for (var reference : page.getEditorReferences()) {
+					unregister(reference);
+				}
+			}
+		}
+
+		@Override
+		public void windowActivated(IWorkbenchWindow window) {
+		}
+
+		@Override
+		public void windowDeactivated(IWorkbenchWindow window) {
+		}
+	};
+
+	private OpenEditorRegistry() {
+	}
+
+	/**
+	 * Returns the registry. It starts listening to the workbench on first access from the UI thread.
+	 *
+	 * @return the registry
+	 */
+	public static OpenEditorRegistry getDefault() {
+		INSTANCE.ensureInstalled();
+		return INSTANCE;
+	}
+
+	/**
+	 * @param uri
+	 * @return the id of the editor which opened the given URI first or an empty optional
+	 */
+	public Optional<String> getEditorId(URI uri) {
+		var name = name(uri);
+		if (!installed) {
+			return scan(references(name), input -> uri.equals(uri(input)));
+		}
+		List<IEditorReference> candidates;
+		synchronized (editors) {
+			var found = Optional.ofNullable(byUri.get(uri)).map(editors::get).map(Entry::editorId);
+			if (found.isPresent()) {
+				return found;
+			}
+			candidates = unrestored(name);
+		}
+		return scan(candidates, input -> uri.equals(uri(input)));
+	}
+
+	/**
+	 * @param input
+	 * @return the id of the editor which opened the given input first or an empty optional
+	 */
+	public Optional<String> getEditorId(IEditorInput input) {
+		var name = input.getName();
+		if (!installed) {
+			return scan(references(name), input::equals);
+		}
+		List<IEditorReference> candidates;
+		synchronized (editors) {
+			var found = Optional.ofNullable(byInput.get(input)).map(editors::get).map(Entry::editorId);
+			if (found.isPresent()) {
+				return found;
+			}
+			candidates = unrestored(name);
+		}
+		return scan(candidates, input::equals);
+	}
+
+	/**
+	 * @return <code>true</code> if no editor is opened
+	 */
+	public boolean isEmpty() {
+		if (!installed) {
+			return references(null).isEmpty();
+		}
+		synchronized (editors) {
+			return editors.isEmpty() && unrestored.isEmpty();
+		}
+	}
+
+	/**
+	 * Compares the inputs of the given editors, which have the name of the looked up file. Their inputs are restored
+	 * if the editors have been loaded lazily.
+	 *
+	 * @return the id of the first editor whose input matches
+	 */
+	private static Optional<String> scan(List<IEditorReference> references, Predicate<IEditorInput> matches) {
+		for (var reference : references) {
+			try {
+				if (matches.test(reference.getEditorInput())) {
+					return Optional.of(reference.getId());
+				}
+			} catch (PartInitException e) {
+				Platform.getLog(OpenEditorRegistry.class).error(e.getMessage(), e);
+			}
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * @param name of the editors or <code>null</code> for all editors
+	 * @return the editor references of the workbench with the given name
+	 */
+	private static List<IEditorReference> references(String name) {
+		if (!PlatformUI.isWorkbenchRunning()) {
+			return List.of();
+		}
+		List<IEditorReference> references = new ArrayList<>();
+		for (var window : PlatformUI.getWorkbench().getWorkbenchWindows()) {
+			for (var page : window.getPages()) {
+				Arrays.stream(page.getEditorReferences()).filter(r -> name == null || name.equals(r.getName()))
+						.forEach(references::add);
+			}
+		}
+		return references;
+	}
+
+	private List<IEditorReference> unrestored(String name) {
+		var references = name != null ? unrestoredByName.get(name) : null;
+		return references != null ? List.copyOf(references) : List.of();
+	}
+
+	private static String name(URI uri) {
+		var path = uri.getPath();
+		return path != null ? path.substring(path.lastIndexOf('/') + 1) : null;
+	}
+
+	private static URI uri(IEditorInput input) {
+		return input instanceof IURIEditorInput uriInput ? uriInput.getURI() : null;
+	}
+
+	private boolean isUnrestored(IEditorReference reference) {
+		synchronized (editors) {
+			return unrestored.containsKey(reference);
+		}
+	}
+
+	private void ensureInstalled() {
+		if (installed || !PlatformUI.isWorkbenchRunning()) {
+			return;
+		}
+		var workbench = PlatformUI.getWorkbench();
+		if (Display.getCurrent() != null) {
+			install();
+		} else {
+			workbench.getDisplay().asyncExec(this::install);
+		}
+	}
+
+	private synchronized void install() {
+		if (installed) {
+			return;
+		}
+		var workbench = PlatformUI.getWorkbench();
+		workbench.addWindowListener(windowListener);
+		for (var window : workbench.getWorkbenchWindows()) {
+			install(window);
+		}
+		// the lookups use the index from now on:
+		installed = true;
+	}
+
+	private void install(IWorkbenchWindow window) {
+		window.getPartService().addPartListener(partListener);
+		for (var page : window.getPages()) {
+			for (var reference : page.getEditorReferences()) {
+				register(reference);
+			}
+		}
+	}
+
+	private void register(IEditorReference reference) {
+		// only created editors, do not restore the input of a lazily loaded editor:
+		var editor = reference.getEditor(false);
+		if (editor == null) {
+			var name = reference.getName();
+			synchronized (editors) {
+				if (unrestored.putIfAbsent(reference, name) == null) {
+					unrestoredByName.computeIfAbsent(name, n -> new LinkedHashSet<>()).add(reference);
+				}
+			}
+			return;
+		}
+		var input = editor.getEditorInput();
+		if (input == null) {
+			return;
+		}
+		var entry = new Entry(input, uri(input), reference.getId());
+		synchronized (editors) {
+			removeUnrestored(reference);
+			editors.put(reference, entry);
+			byInput.putIfAbsent(input, reference);
+			if (entry.uri() != null) {
+				byUri.putIfAbsent(entry.uri(), reference);
+			}
+		}
+	}
+
+	private void unregister(IEditorReference reference) {
+		synchronized (editors) {
+			removeUnrestored(reference);
+			var entry = editors.remove(reference);
+			if (entry == null) {
+				return;
+			}
+			if (byInput.remove(entry.input(), reference)) {
+				// another editor with the same input becomes the first one:
+				editors.entrySet().stream().filter(e -> Objects.equals(e.getValue().input(), entry.input()))
+						.findFirst().ifPresent(e -> byInput.put(entry.input(), e.getKey()));
+			}
+			if (entry.uri() != null && byUri.remove(entry.uri(), reference)) {
+				editors.entrySet().stream().filter(e -> entry.uri().equals(e.getValue().uri())).findFirst()
+						.ifPresent(e -> byUri.put(entry.uri(), e.getKey()));
+			}
+		}
+	}
+
+	private void removeUnrestored(IEditorReference reference) {
+		var name = unrestored.remove(reference);
+		if (name != null) {
+			var references = unrestoredByName.get(name);
+			references.remove(reference);
+			if (references.isEmpty()) {
+				unrestoredByName.remove(name);
+			}
+		}
+	}
+
+}
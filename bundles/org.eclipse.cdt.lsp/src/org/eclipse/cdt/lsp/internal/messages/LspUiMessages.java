@@ -24,6 +24,7 @@ public class LspUiMessages extends NLS {
 	}
 
 	public static String NavigatorView_ErrorOnLoad;
+	public static String NavigatorView_NextPage;
 
 	public static String LspEditorConfigurationPage_spelling_link;
 	public static String LspEditorConfigurationPage_spelling_link_tooltip;
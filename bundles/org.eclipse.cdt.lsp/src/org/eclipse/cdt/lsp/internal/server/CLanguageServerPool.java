@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.internal.server;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import org.eclipse.cdt.lsp.ResourceLocations;
+import org.eclipse.cdt.lsp.util.LanguageServerWrappers;
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.lsp4e.LSPEclipseUtils;
+import org.eclipse.lsp4e.LanguageServerWrapper;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Keeps track of the running C/C++ language servers. By default all projects share one server. With the system
+ * property <code>org.eclipse.cdt.lsp.server.perProject</code> set to <code>true</code>, LSP4E starts one server per
+ * project instead, with the command line of the project and the project as root, from which the server finds the
+ * compilation database of the project. The number of running servers per project is bounded:
+ * <ul>
+ * <li>a server without opened documents is stopped when it has not been used for the idle timeout,</li>
+ * <li>when more than the maximum number of servers are running, the least recently used servers without opened
+ * documents are stopped.</li>
+ * </ul>
+ * A stopped server is started again by LSP4E when a document of its project is opened.
+ * The shared server and the servers of files outside of the workspace are counted, but left to LSP4E.
+ * The limits can be changed with the system properties {@value #MAX_INSTANCES_PROPERTY}
+ * and {@value #IDLE_TIMEOUT_PROPERTY} (minutes).
+ */
+public final class CLanguageServerPool {
+	private static final String MAX_INSTANCES_PROPERTY = "org.eclipse.cdt.lsp.server.maxInstances"; //$NON-NLS-1$
+	private static final String IDLE_TIMEOUT_PROPERTY = "org.eclipse.cdt.lsp.server.idleTimeout"; //$NON-NLS-1$
+	private static final int MAX_INSTANCES = Integer.getInteger(MAX_INSTANCES_PROPERTY, 8);
+	private static final long IDLE_TIMEOUT = TimeUnit.MINUTES.toNanos(Long.getLong(IDLE_TIMEOUT_PROPERTY, 15));
+	private static final long CHECK_INTERVAL = 60_000; // ms
+	private static final CLanguageServerPool INSTANCE = new CLanguageServerPool();
+
+	/**
+	 * Identifies a server by its command line and its root, which determines the compilation database. The root of
+	 * the shared server is <code>null</code>.
+	 */
+	public record Key(List<String> commands, URI root) {
+	}
+
+	public static final class Instance {
+		private final Key key;
+		private final LongSupplier clock;
+		private volatile long lastUsed;
+
+		private Instance(Key key, LongSupplier clock) {
+			this.key = key;
+			this.clock = clock;
+			this.lastUsed = clock.getAsLong();
+		}
+
+		public Key key() {
+			return key;
+		}
+
+		/**
+		 * Records the use of the server, called for each message.
+		 */
+		public void used() {
+			lastUsed = clock.getAsLong();
+		}
+	}
+
+	// guarded by instances:
+	private final Map<Object, Instance> instances = new LinkedHashMap<>();
+	private final LongSupplier clock;
+	private final Predicate<Instance> stop;
+	// checks the running servers periodically, not used by pools created for tests:
+	private final Job job;
+
+	private CLanguageServerPool() {
+		this.clock = System::nanoTime;
+		this.stop = CLanguageServerPool::stop;
+		this.job = Job.create("Stop unused C/C++ language servers", this::check); //$NON-NLS-1$
+		job.setSystem(true);
+	}
+
+	/**
+	 * Creates a pool whose unused servers are only stopped by {@link #stopUnused(long, int, long)}.
+	 *
+	 * @param clock time in ns
+	 * @param stop  stops the server of an instance, returns <code>false</code> if the server is still in use
+	 */
+	public CLanguageServerPool(LongSupplier clock, Predicate<Instance> stop) {
+		this.clock = clock;
+		this.stop = stop;
+		this.job = null;
+	}
+
+	static CLanguageServerPool getDefault() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Registers a started server.
+	 *
+	 * @param server connection of the server
+	 * @param key    command line and root of the server
+	 * @return the instance to record the use of the server
+	 */
+	public Instance started(Object server, Key key) {
+		var instance = new Instance(key, clock);
+		int running;
+		synchronized (instances) {
+			instances.put(server, instance);
+			running = instances.size();
+		}
+		if (job != null) {
+			// not stopped on this thread, which is starting a server:
+			job.schedule(running > MAX_INSTANCES ? 0 : CHECK_INTERVAL);
+		}
+		return instance;
+	}
+
+	/**
+	 * Unregisters a stopped server.
+	 *
+	 * @param server connection of the server
+	 */
+	public void stopped(Object server) {
+		synchronized (instances) {
+			instances.remove(server);
+		}
+	}
+
+	private void check(IProgressMonitor monitor) {
+		boolean running;
+		synchronized (instances) {
+			running = !instances.isEmpty();
+		}
+		if (running) {
+			stopUnused(clock.getAsLong(), MAX_INSTANCES, IDLE_TIMEOUT);
+			job.schedule(CHECK_INTERVAL);
+		}
+	}
+
+	/**
+	 * Stops the servers which have been idle for longer than the timeout and, while more than the maximum number of
+	 * servers are running, the least recently used ones.
+	 *
+	 * @param now          current time in ns
+	 * @param maxInstances maximum number of running servers
+	 * @param idleTimeout  time in ns after the last use, when a server is stopped
+	 * @return the instances whose servers have been stopped
+	 */
+	public List<Instance> stopUnused(long now, int maxInstances, long idleTimeout) {
+		List<Instance> running;
+		synchronized (instances) {
+			running = new ArrayList<>(instances.values());
+		}
+		List<Instance> stopped = new ArrayList<>();
+		// least recently used first:
+		running.sort(Comparator.comparingLong(i -> i.lastUsed));
+		int exceeding = running.size() - maxInstances;
+		for (var instance : running) {
+			boolean idle = now - instance.lastUsed > idleTimeout;
+			if ((exceeding > 0 || idle) && stop.test(instance)) {
+				exceeding--;
+				stopped.add(instance);
+				Platform.getLog(getClass()).info(NLS.bind("Stopped the {0} C/C++ language server of {1}", //$NON-NLS-1$
+						idle ? "idle" : "least recently used", instance.key.root())); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		return stopped;
+	}
+
+	/**
+	 * @return <code>true</code> if the server has been stopped, <code>false</code> if it has opened documents
+	 */
+	private static boolean stop(Instance instance) {
+		var project = project(instance.key.root());
+		if (project.isEmpty()) {
+			return false;
+		}
+		var wrapper = LanguageServerWrappers.getActive().filter(w -> w.canOperate(project.get())).findFirst();
+		if (wrapper.isEmpty() || hasOpenedDocuments(wrapper.get(), project.get())) {
+			return false;
+		}
+		wrapper.get().stop();
+		return true;
+	}
+
+	private static Optional<IProject> project(URI root) {
+		if (root == null) {
+			return Optional.empty();
+		}
+		return ResourceLocations.of(ResourcesPlugin.getWorkspace()).findExisting(root)//
+				.filter(IProject.class::isInstance)//
+				.map(IResource::getProject);
+	}
+
+	private static boolean hasOpenedDocuments(LanguageServerWrapper wrapper, IProject project) {
+		for (var buffer : FileBuffers.getTextFileBufferManager().getFileBuffers()) {
+			var file = buffer.getLocation() != null ? FileBuffers.getWorkspaceFileAtLocation(buffer.getLocation())
+					: null;
+			if (file != null && project.equals(file.getProject())
+					&& wrapper.isConnectedTo(LSPEclipseUtils.toUri(file))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
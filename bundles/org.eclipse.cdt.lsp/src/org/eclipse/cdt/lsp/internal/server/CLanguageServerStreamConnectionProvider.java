@@ -13,15 +13,23 @@
 
 package org.eclipse.cdt.lsp.internal.server;
 
+import java.io.IOException;
 import java.net.URI;
+import java.util.List;
 
 import org.eclipse.cdt.lsp.plugin.LspPlugin;
 import org.eclipse.cdt.lsp.server.ICLanguageServerProvider;
+import org.eclipse.cdt.lsp.util.LanguageServerWrappers;
 import org.eclipse.lsp4e.server.ProcessStreamConnectionProvider;
+import org.eclipse.lsp4j.jsonrpc.messages.Message;
+import org.eclipse.lsp4j.services.LanguageServer;
 
 public final class CLanguageServerStreamConnectionProvider extends ProcessStreamConnectionProvider {
 
 	private final ICLanguageServerProvider provider;
+	private CLanguageServerPool.Key key;
+	private volatile CLanguageServerPool.Instance instance;
+	private final TimeToFirstHover timeToFirstHover = new TimeToFirstHover();
 
 	public CLanguageServerStreamConnectionProvider() {
 		this.provider = LspPlugin.getDefault().getCLanguageServerProvider();
@@ -31,8 +39,40 @@ public final class CLanguageServerStreamConnectionProvider extends ProcessStream
 
 	@Override
 	public Object getInitializationOptions(URI rootUri) {
-		setCommands(provider.getCommands(rootUri));
+		var commands = provider.getCommands(rootUri);
+		setCommands(commands);
+		key = new CLanguageServerPool.Key(List.copyOf(commands), rootUri);
 		return provider.getInitializationOptions(rootUri);
 	}
 
+	@Override
+	public void start() throws IOException {
+		try {
+			super.start();
+			instance = CLanguageServerPool.getDefault().started(this, key);
+		} finally {
+			LanguageServerWrappers.invalidate();
+		}
+	}
+
+	@Override
+	public void handleMessage(Message message, LanguageServer languageServer, URI rootURI) {
+		var current = instance;
+		if (current != null) {
+			current.used();
+		}
+		timeToFirstHover.message(message);
+	}
+
+	@Override
+	public void stop() {
+		try {
+			instance = null;
+			CLanguageServerPool.getDefault().stopped(this);
+			super.stop();
+		} finally {
+			LanguageServerWrappers.invalidate();
+		}
+	}
+
 }
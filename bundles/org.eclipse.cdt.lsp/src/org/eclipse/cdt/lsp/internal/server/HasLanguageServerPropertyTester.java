@@ -14,7 +14,6 @@
 
 package org.eclipse.cdt.lsp.internal.server;
 
-import java.io.File;
 import java.net.URI;
 import java.util.Optional;
 
@@ -24,11 +23,11 @@ import org.eclipse.cdt.lsp.ExistingResource;
 import org.eclipse.cdt.lsp.editor.InitialUri;
 import org.eclipse.cdt.lsp.plugin.LspPlugin;
 import org.eclipse.cdt.lsp.server.ICLanguageServerProvider;
+import org.eclipse.cdt.lsp.util.CContentTypes;
 import org.eclipse.cdt.lsp.util.LspUtils;
 import org.eclipse.core.expressions.PropertyTester;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspace;
-import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.ServiceCaller;
 import org.eclipse.lsp4e.outline.SymbolsModel.DocumentSymbolWithURI;
 
@@ -49,7 +48,7 @@ public class HasLanguageServerPropertyTester extends PropertyTester {
 			if (receiver instanceof URI) {
 				// called from the language server enabler for LSP4E:
 				var uri = (URI) receiver;
-				if (!validContentType(uri))
+				if (!CContentTypes.isCFile(uri))
 					return false;
 				// when getProject is empty, it's an external file: Check if the file is already opened, if not check the active editor:
 				var isEnabled = enabledFor(uri);
@@ -70,14 +69,6 @@ public class HasLanguageServerPropertyTester extends PropertyTester {
 		return false;
 	}
 
-	private boolean validContentType(URI uri) {
-		var contentType = Platform.getContentTypeManager().findContentTypeFor(new File(uri.getPath()).getName());
-		if (contentType != null) {
-			return LspUtils.isCContentType(contentType.getId());
-		}
-		return false;
-	}
-
 	private boolean enabledFor(URI uri) {
 		boolean[] provider = new boolean[1];
 		workspace.call(w -> provider[0] = new ExistingResource(w).apply(uri)//
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.internal.server;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.cdt.lsp.ResourceLocations;
+import org.eclipse.cdt.lsp.editor.InitialUri;
+import org.eclipse.cdt.lsp.util.LanguageServerWrappers;
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.LocationKind;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.ServiceCaller;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.lsp4e.LSPEclipseUtils;
+import org.eclipse.lsp4e.LanguageServers;
+import org.eclipse.lsp4j.DocumentSymbolParams;
+import org.eclipse.lsp4j.ServerCapabilities;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.ui.IStartup;
+
+/**
+ * Starts the C/C++ language server in the background after the workbench has been started, when enabled with the
+ * system property {@value #PREWARM_PROPERTY}. The file which has been opened first in the last session
+ * (see {@link InitialUri}) is loaded without an editor and its symbols are requested, so that the server of its
+ * project is running and has built the preamble of the file when the user opens it again.
+ * <p>
+ * The document is kept connected for {@value #HOLD_MINUTES} minutes. Afterwards it stays opened in the server
+ * only if it has been opened in an editor meanwhile.
+ * </p>
+ */
+public final class LanguageServerPrewarm implements IStartup {
+	private static final String PREWARM_PROPERTY = "org.eclipse.cdt.lsp.server.prewarm"; //$NON-NLS-1$
+	// leave the workbench startup jobs a head start:
+	private static final long IDLE_DELAY = 5000; // ms
+	private static final long HOLD_MINUTES = 10;
+	// bounds the wait for the server, so that the document is released in any case:
+	private static final long TIMEOUT_MINUTES = 2;
+
+	private final ServiceCaller<InitialUri> initialUri = new ServiceCaller<>(getClass(), InitialUri.class);
+
+	@Override
+	public void earlyStartup() {
+		if (!Boolean.getBoolean(PREWARM_PROPERTY)) {
+			return;
+		}
+		var job = Job.create("Start C/C++ language server", this::prewarm); //$NON-NLS-1$
+		job.setSystem(true);
+		job.setPriority(Job.DECORATE);
+		job.schedule(IDLE_DELAY);
+	}
+
+	private void prewarm(IProgressMonitor monitor) throws CoreException {
+		if (monitor.isCanceled() || LanguageServerWrappers.getActive().findAny().isPresent()) {
+			// a server has been started for an opened editor already:
+			return;
+		}
+		var file = initialFile();
+		if (file.isEmpty()) {
+			return;
+		}
+		var path = file.get().getFullPath();
+		var manager = FileBuffers.getTextFileBufferManager();
+		manager.connect(path, LocationKind.IFILE, monitor);
+		var document = manager.getTextFileBuffer(path, LocationKind.IFILE).getDocument();
+		var params = new DocumentSymbolParams(LSPEclipseUtils.toTextDocumentIdentifier(document));
+		long start = System.nanoTime();
+		// the document is connected to the server of its project, if the language server is enabled for it:
+		LanguageServers.forDocument(document).withCapability(ServerCapabilities::getDocumentSymbolProvider)
+				.computeFirst((w, ls) -> ls.getTextDocumentService().documentSymbol(params))
+				.orTimeout(TIMEOUT_MINUTES, TimeUnit.MINUTES)//
+				.whenComplete((symbols, t) -> {
+					boolean prewarmed = t == null && symbols.isPresent();
+					if (t instanceof TimeoutException) {
+						Platform.getLog(getClass())
+								.warn(NLS.bind("Pre-warming the C/C++ language server with {0} timed out", path)); //$NON-NLS-1$
+					} else if (t != null) {
+						Platform.getLog(getClass()).error(t.getMessage(), t);
+					} else if (prewarmed) {
+						TimeToFirstHover.prewarmed();
+						Platform.getLog(getClass()).info(NLS.bind("Pre-warmed the C/C++ language server with {0} in {1} ms", //$NON-NLS-1$
+								path, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+					}
+					release(path, prewarmed ? TimeUnit.MINUTES.toMillis(HOLD_MINUTES) : 0);
+				});
+	}
+
+	private Optional<IFile> initialFile() {
+		return initialUri.current().flatMap(i -> i.find(null))//
+				.flatMap(ResourceLocations.of(ResourcesPlugin.getWorkspace())::findExisting)//
+				.filter(IFile.class::isInstance)//
+				.map(IFile.class::cast);
+	}
+
+	private static void release(IPath path, long delay) {
+		var job = Job.create("Release pre-warmed C/C++ document", monitor -> { //$NON-NLS-1$
+			// the document stays connected to the server while it is opened in an editor:
+			FileBuffers.getTextFileBufferManager().disconnect(path, LocationKind.IFILE, monitor);
+		});
+		job.setSystem(true);
+		job.schedule(delay);
+	}
+
+}
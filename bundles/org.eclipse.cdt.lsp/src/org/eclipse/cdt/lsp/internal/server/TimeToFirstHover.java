@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.internal.server;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.lsp4j.jsonrpc.messages.Message;
+import org.eclipse.lsp4j.jsonrpc.messages.RequestMessage;
+import org.eclipse.lsp4j.jsonrpc.messages.ResponseMessage;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Logs once per session how long after the start of the application the first hover has been answered by a
+ * C/C++ language server, to compare the startup with and without {@link LanguageServerPrewarm}.
+ * An instance observes the messages of one server connection.
+ */
+final class TimeToFirstHover {
+	private static final String HOVER = "textDocument/hover"; //$NON-NLS-1$
+	private static final AtomicBoolean reported = new AtomicBoolean();
+	private static volatile boolean prewarmed;
+
+	// guarded by this:
+	private String requestId;
+	private long requested;
+
+	/**
+	 * Records that a language server has been pre-warmed in this session.
+	 */
+	static void prewarmed() {
+		prewarmed = true;
+	}
+
+	/**
+	 * @param message sent to or received from the server
+	 */
+	void message(Message message) {
+		if (reported.get()) {
+			return;
+		}
+		if (message instanceof RequestMessage request && HOVER.equals(request.getMethod())) {
+			synchronized (this) {
+				if (requestId == null) {
+					requestId = request.getId();
+					requested = System.nanoTime();
+				}
+			}
+		} else if (message instanceof ResponseMessage response) {
+			long latency;
+			synchronized (this) {
+				if (requestId == null || !requestId.equals(response.getId())) {
+					return;
+				}
+				latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - requested);
+			}
+			if (reported.compareAndSet(false, true)) {
+				long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+				Platform.getLog(getClass())
+						.info(NLS.bind("First C/C++ hover answered {0} ms after start in {1} ms, pre-warm: {2}", //$NON-NLS-1$
+								new Object[] { uptime, latency, prewarmed }));
+			}
+		}
+	}
+
+}
@@ -12,15 +12,17 @@
 
 package org.eclipse.cdt.lsp.internal.ui;
 
-import java.util.Optional;
-
 import org.eclipse.cdt.lsp.LspQualifier;
+import org.eclipse.cdt.lsp.ResolveProject;
 import org.eclipse.cdt.lsp.config.Configuration;
 import org.eclipse.cdt.lsp.config.ConfigurationAccess;
 import org.eclipse.cdt.lsp.editor.EditorMetadata;
 import org.eclipse.cdt.lsp.editor.EditorOptions;
 import org.eclipse.cdt.lsp.editor.LanguageServerEnable;
+import org.eclipse.cdt.lsp.internal.editor.EditorOptionsSnapshot;
 import org.eclipse.cdt.lsp.internal.editor.EditorPreferredOptions;
+import org.eclipse.cdt.lsp.util.ProjectPreferenceCache;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ProjectScope;
 import org.eclipse.core.runtime.preferences.DefaultScope;
@@ -29,6 +31,7 @@ import org.eclipse.core.runtime.preferences.IScopeContext;
 import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.eclipse.core.runtime.preferences.OsgiPreferenceMetadataStore;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 
@@ -44,8 +47,17 @@ public class EditorConfigurationAccess extends ConfigurationAccess implements Co
 	@Reference(cardinality = ReferenceCardinality.OPTIONAL)
 	private LanguageServerEnable enable;
 
+	// resolving the options walks the scope chain for each option, keep them until a preference changes:
+	private final ProjectPreferenceCache<EditorOptions> snapshots;
+
 	public EditorConfigurationAccess() {
 		super(new LspQualifier().get());
+		snapshots = new ProjectPreferenceCache<>(qualifier, this::snapshot);
+	}
+
+	@Deactivate
+	void deactivate() {
+		snapshots.dispose();
 	}
 
 	@Override
@@ -55,14 +67,17 @@ public class EditorConfigurationAccess extends ConfigurationAccess implements Co
 
 	@Override
 	public EditorOptions options(Object context) {
-		Optional<ProjectScope> project = projectScope(workspace, context);
+		return snapshots.get(new ResolveProject(workspace).apply(context).orElse(null));
+	}
+
+	private EditorOptions snapshot(IProject project) {
 		IScopeContext[] scopes;
-		if (project.isPresent()) {
-			scopes = new IScopeContext[] { project.get(), InstanceScope.INSTANCE, DefaultScope.INSTANCE };
+		if (project != null) {
+			scopes = new IScopeContext[] { new ProjectScope(project), InstanceScope.INSTANCE, DefaultScope.INSTANCE };
 		} else {
 			scopes = new IScopeContext[] { InstanceScope.INSTANCE, DefaultScope.INSTANCE };
 		}
-		return new EditorPreferredOptions(qualifier, scopes, metadata, enable);
+		return EditorOptionsSnapshot.of(new EditorPreferredOptions(qualifier, scopes, metadata, enable), enable);
 	}
 
 	@Override
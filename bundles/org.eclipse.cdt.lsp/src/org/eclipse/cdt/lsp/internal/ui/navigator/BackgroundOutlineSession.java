@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.internal.ui.navigator;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.LocationKind;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Keeps the documents connected, which have been loaded to fetch the symbols of files that are not opened in an editor.
+ * Without the session, browsing the symbols of many files sends a <code>didOpen</code> and a <code>didClose</code>
+ * for each file and the language server may even be shut down and restarted each time the last document gets disconnected.
+ * The documents are disconnected together in a single job when no document has been added for a while.
+ * The number of documents is limited, since the language server builds an AST for every opened document.
+ */
+final class BackgroundOutlineSession {
+	private final int maxDocuments;
+	private final long idleTimeout;
+	private final Predicate<IFile> busy;
+	// insertion ordered, the first file is the oldest one:
+	private final LinkedHashSet<IFile> documents = new LinkedHashSet<>();
+
+	private final Job releaseJob = new Job("Release outline documents") { //$NON-NLS-1$
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			release(false);
+			return Status.OK_STATUS;
+		}
+
+	};
+
+	/**
+	 * @param maxDocuments maximum number of documents kept connected
+	 * @param idleTimeout time in ms after the last added document, when all documents get disconnected
+	 * @param busy tests whether a document is still in use and must not be disconnected yet
+	 */
+	BackgroundOutlineSession(int maxDocuments, long idleTimeout, Predicate<IFile> busy) {
+		this.maxDocuments = Math.max(1, maxDocuments);
+		this.idleTimeout = idleTimeout;
+		this.busy = Objects.requireNonNull(busy);
+		releaseJob.setSystem(true);
+	}
+
+	/**
+	 * Adds a document connected via {@link org.eclipse.lsp4e.LSPEclipseUtils#getDocument(org.eclipse.core.resources.IResource)}
+	 * to the session. The session becomes the owner of the connection.
+	 *
+	 * @param file
+	 */
+	void add(IFile file) {
+		List<IFile> overflow = new ArrayList<>();
+		synchronized (documents) {
+			if (!documents.add(file)) {
+				// already connected by the session, release the additional connection:
+				overflow.add(file);
+			}
+			Iterator<IFile> oldest = documents.iterator();
+			while (documents.size() > maxDocuments && oldest.hasNext()) {
+				var candidate = oldest.next();
+				if (!candidate.equals(file) && !busy.test(candidate)) {
+					oldest.remove();
+					overflow.add(candidate);
+				}
+			}
+		}
+		overflow.forEach(this::disconnect);
+		// restart the idle timer:
+		releaseJob.cancel();
+		releaseJob.schedule(idleTimeout);
+	}
+
+	/**
+	 * Disconnects all documents of the session.
+	 */
+	void dispose() {
+		releaseJob.cancel();
+		release(true);
+	}
+
+	private void release(boolean all) {
+		List<IFile> released = new ArrayList<>();
+		boolean pending = false;
+		synchronized (documents) {
+			for (Iterator<IFile> iterator = documents.iterator(); iterator.hasNext();) {
+				var file = iterator.next();
+				if (all || !busy.test(file)) {
+					iterator.remove();
+					released.add(file);
+				} else {
+					pending = true;
+				}
+			}
+		}
+		released.forEach(this::disconnect);
+		if (pending) {
+			releaseJob.schedule(idleTimeout);
+		}
+	}
+
+	private void disconnect(IFile file) {
+		//Note: the LS will be terminated via the shutdown command by LSP4E, when all documents have been disconnected.
+		//This is the case when no file is opened in the LSP based C/C++ editor.
+		try {
+			FileBuffers.getTextFileBufferManager().disconnect(file.getFullPath(), LocationKind.IFILE,
+					new NullProgressMonitor());
+		} catch (CoreException e) {
+			Platform.getLog(getClass()).error(e.getMessage(), e);
+		}
+	}
+
+}
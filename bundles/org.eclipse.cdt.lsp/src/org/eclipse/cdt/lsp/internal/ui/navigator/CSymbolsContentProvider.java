@@ -13,26 +13,49 @@
 
 package org.eclipse.cdt.lsp.internal.ui.navigator;
 
-import java.util.Arrays;
+import java.net.URI;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import org.eclipse.cdt.core.model.ITranslationUnit;
 import org.eclipse.cdt.internal.ui.navigator.CNavigatorContentProvider;
 import org.eclipse.cdt.lsp.internal.messages.LspUiMessages;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jface.viewers.AbstractTreeViewer;
+import org.eclipse.jface.viewers.IOpenListener;
+import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.lsp4e.outline.SymbolsModel.DocumentSymbolWithURI;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.ui.model.WorkbenchAdapter;
 import org.eclipse.ui.progress.DeferredTreeContentManager;
 import org.eclipse.ui.progress.IDeferredWorkbenchAdapter;
+import org.eclipse.ui.progress.PendingUpdateAdapter;
 
 public class CSymbolsContentProvider extends CNavigatorContentProvider {
 
 	private final SymbolsManager symbolsManager = SymbolsManager.INSTANCE;
 	private DeferredCSymbolLoader loader;
 	private Object currentInput;
+	private AbstractTreeViewer treeViewer;
+	/**
+	 * Number of top level symbols loaded per translation unit, if the user has opened more than the first page.
+	 */
+	private final Map<ITranslationUnit, Integer> loadedSymbols = new ConcurrentHashMap<>();
+	/**
+	 * Pushes refreshed symbols to the expanded translation units, when their symbols have become outdated.
+	 */
+	private final Consumer<Set<URI>> invalidationListener = this::refreshExpanded;
+	private final IOpenListener nextPageListener = event -> {
+		if (event.getSelection() instanceof IStructuredSelection selection
+				&& selection.getFirstElement() instanceof SymbolsPage page) {
+			showNextPage(page);
+		}
+	};
 
 	private static final WorkbenchAdapter ERROR_ELEMENT = new WorkbenchAdapter() {
 
@@ -48,7 +71,8 @@ public class CSymbolsContentProvider extends CNavigatorContentProvider {
 			loader.cancel(currentInput);
 		}
 		currentInput = null;
-		symbolsManager.dispose();
+		loadedSymbols.clear();
+		setTreeViewer(null);
 		loader = null;
 		super.dispose();
 	}
@@ -59,12 +83,82 @@ public class CSymbolsContentProvider extends CNavigatorContentProvider {
 			loader.cancel(oldInput);
 		}
 		currentInput = newInput;
+		loadedSymbols.clear();
+		setTreeViewer(viewer instanceof AbstractTreeViewer treeViewer ? treeViewer : null);
 		if (viewer instanceof AbstractTreeViewer && newInput != null) {
 			loader = new DeferredCSymbolLoader((AbstractTreeViewer) viewer, (IDeferredWorkbenchAdapter) symbolsManager);
 		}
 		super.inputChanged(viewer, oldInput, newInput);
 	}
 
+	private void setTreeViewer(AbstractTreeViewer viewer) {
+		if (treeViewer == viewer) {
+			return;
+		}
+		if (treeViewer != null) {
+			treeViewer.removeOpenListener(nextPageListener);
+			symbolsManager.removeInvalidationListener(invalidationListener);
+			// the symbols manager is shared by all viewers, it is only stopped when the last one is gone:
+			symbolsManager.disconnect();
+		}
+		treeViewer = viewer;
+		if (treeViewer != null) {
+			symbolsManager.connect();
+			treeViewer.addOpenListener(nextPageListener);
+			symbolsManager.addInvalidationListener(invalidationListener);
+		}
+	}
+
+	private void refreshExpanded(Set<URI> uris) {
+		var viewer = treeViewer;
+		if (viewer == null) {
+			return;
+		}
+		var control = viewer.getControl();
+		if (control == null || control.isDisposed()) {
+			return;
+		}
+		control.getDisplay().asyncExec(() -> {
+			var currentLoader = loader;
+			if (control.isDisposed() || currentLoader == null) {
+				return;
+			}
+			for (var element : viewer.getExpandedElements()) {
+				if (element instanceof ITranslationUnit unit && unit.getFile() != null
+						&& uris.contains(unit.getFile().getLocationURI())) {
+					// all loaded pages are compared, so that no page is left with outdated symbols:
+					int limit = loadedSymbols(unit);
+					var shown = symbolsManager.getTranslationUnitElements(unit, 0, limit);
+					if (shown != null) {
+						currentLoader.refreshChildren(unit, shown, limit);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Replaces the given cursor by the next page of symbols. Only the elements of this page are created.
+	 */
+	private void showNextPage(SymbolsPage page) {
+		var viewer = treeViewer;
+		if (viewer == null || viewer.getControl().isDisposed()) {
+			return;
+		}
+		var elements = symbolsManager.getTranslationUnitElements(page.unit(), page.offset(), SymbolsManager.PAGE_SIZE);
+		loadedSymbols.put(page.unit(), page.offset() + SymbolsManager.PAGE_SIZE);
+		var control = viewer.getControl();
+		try {
+			control.setRedraw(false);
+			viewer.remove(page);
+			if (elements != null) {
+				viewer.add(page.unit(), elements);
+			}
+		} finally {
+			control.setRedraw(true);
+		}
+	}
+
 	@Override
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public void getPipelinedChildren(Object parent, Set currentChildren) {
@@ -91,18 +185,23 @@ public class CSymbolsContentProvider extends CNavigatorContentProvider {
 
 	@Override
 	protected Object[] getTranslationUnitChildren(ITranslationUnit unit) {
-		if (!symbolsManager.isDirty(unit)) {
-			var symbols = symbolsManager.getTranslationUnitElements(unit);
-			if (symbols != null) {
-				return symbols;
-			}
+		var symbols = symbolsManager.getTranslationUnitElements(unit, 0, loadedSymbols(unit));
+		if (symbols != null && (!symbolsManager.isDirty(unit) || loader != null && loader.isRefreshing(unit))) {
+			// outdated symbols are shown until the refresh scheduled on their invalidation is applied:
+			return symbols;
 		}
+		// the deferred loader shows the first page:
+		loadedSymbols.remove(unit);
 		if (loader != null) {
 			return loader.getChildren(unit);
 		}
 		return NO_CHILDREN;
 	}
 
+	private int loadedSymbols(ITranslationUnit unit) {
+		return loadedSymbols.getOrDefault(unit, SymbolsManager.PAGE_SIZE);
+	}
+
 	/**
 	 * A variant of {@link DeferredTreeContentManager}. By adding a fixed {@link IDeferredWorkbenchAdapter}
 	 * we avoid to implement an adapter for {@link ITranslationUnit} to {@code IDeferredWorkbenchAdapter}.
@@ -113,14 +212,14 @@ public class CSymbolsContentProvider extends CNavigatorContentProvider {
 	 * For our use case (load the whole symbols, then add it to the tree) a
 	 * {@link org.eclipse.swt.widgets.Display#asyncExec(Runnable) asyncExec()} is
 	 * sufficient.
+	 * It doesn't use a job to fetch the symbols either: the request to the language server is sent asynchronously
+	 * and the tree gets filled when the response arrives, so that no job thread waits for the language server.
 	 */
 	private static class DeferredCSymbolLoader extends DeferredTreeContentManager {
 		private final IDeferredWorkbenchAdapter adapter;
 		private final AbstractTreeViewer viewer;
-		/**
-		 * maximum children of a translation unit to be shown in Project Explorer when TU gets expanded. Prevents longer UI freezes.
-		 */
-		private static final int MAX_INITIAL_CHILDREN = 100;
+		private final Map<Object, RequestMonitor> requests = new ConcurrentHashMap<>();
+		private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
 
 		public DeferredCSymbolLoader(AbstractTreeViewer viewer, IDeferredWorkbenchAdapter adapter) {
 			super(viewer);
@@ -133,6 +232,101 @@ public class CSymbolsContentProvider extends CNavigatorContentProvider {
 			return adapter;
 		}
 
+		@Override
+		protected void startFetchingDeferredChildren(Object parent, IDeferredWorkbenchAdapter adapter,
+				PendingUpdateAdapter placeholder) {
+			if (!(adapter instanceof SymbolsManager symbolsManager)) {
+				super.startFetchingDeferredChildren(parent, adapter, placeholder);
+				return;
+			}
+			// cancel any request currently fetching children for the same parent:
+			cancel(parent);
+			var monitor = new RequestMonitor();
+			requests.put(parent, monitor);
+			var request = symbolsManager.fetchDeferredChildrenAsync(parent, createElementCollector(parent, placeholder),
+					monitor);
+			monitor.setRequest(request);
+			request.whenComplete((children, error) -> requests.remove(parent, monitor));
+		}
+
+		@Override
+		public void cancel(Object parent) {
+			if (parent == null) {
+				return;
+			}
+			super.cancel(parent);
+			refreshing.remove(parent);
+			var monitor = requests.remove(parent);
+			if (monitor != null) {
+				monitor.setCanceled(true);
+			}
+		}
+
+		/**
+		 * Fetches the children of the given parent again and applies only the differences to the
+		 * currently {@code shown} children, so that the UI thread is not blocked by rebuilding a large tree
+		 * and the expansion state of unchanged nodes is preserved.
+		 *
+		 * @param parent
+		 *            whose children should be refreshed
+		 * @param shown
+		 *            children currently shown in the tree
+		 * @param limit
+		 *            number of top level symbols shown, the refreshed children are compared up to the same limit
+		 */
+		void refreshChildren(ITranslationUnit parent, Object[] shown, int limit) {
+			if (!(adapter instanceof SymbolsManager symbolsManager)) {
+				return;
+			}
+			cancel(parent);
+			var monitor = new RequestMonitor();
+			requests.put(parent, monitor);
+			refreshing.add(parent);
+			var request = symbolsManager.getCompileUnitElements(parent);
+			monitor.setRequest(request);
+			request.whenComplete((children, error) -> {
+				if (requests.remove(parent, monitor)) {
+					refreshing.remove(parent);
+				}
+				if (error == null && !monitor.isCanceled()) {
+					var refreshed = symbolsManager.getTranslationUnitElements(parent, 0, limit);
+					if (refreshed != null) {
+						updateChildren(parent, shown, refreshed);
+					}
+				}
+			});
+		}
+
+		/**
+		 * @param parent
+		 * @return <code>true</code> if the children of the given parent are being refreshed
+		 */
+		boolean isRefreshing(Object parent) {
+			return refreshing.contains(parent);
+		}
+
+		private void updateChildren(Object parent, Object[] shown, Object[] children) {
+			Control control = viewer.getControl();
+			if (control == null || control.isDisposed()) {
+				return;
+			}
+			// compute the difference in the background, the UI thread only applies it:
+			var diff = SymbolsDiff.compute(shown, children);
+			if (diff.isEmpty()) {
+				return;
+			}
+			control.getDisplay().asyncExec(() -> {
+				if (!control.isDisposed()) {
+					try {
+						control.setRedraw(false);
+						diff.applyTo(viewer, parent);
+					} finally {
+						control.setRedraw(true);
+					}
+				}
+			});
+		}
+
 		/**
 		 * Add child nodes, removing the error element if appropriate. Contrary
 		 * to the super implementation, this does <em>not</em> use a UI job but
@@ -159,14 +353,9 @@ public class CSymbolsContentProvider extends CNavigatorContentProvider {
 						if (children.length != 1 || children[0] != ERROR_ELEMENT) {
 							viewer.remove(ERROR_ELEMENT);
 						}
-						var limitedChildren = children;
-						if (children.length > MAX_INITIAL_CHILDREN) {
-							// limit children to prevent long UI freezes...
-							// more children can be shown in navigator Treeview via 'Show next x items from remaining y'
-							// at the end of the list
-							limitedChildren = Arrays.copyOfRange(children, 0, MAX_INITIAL_CHILDREN);
-						}
-						viewer.add(parent, limitedChildren);
+						// children are limited to the first page to prevent long UI freezes,
+						// more children are shown when the trailing SymbolsPage element gets opened:
+						viewer.add(parent, children);
 					} finally {
 						control.setRedraw(true);
 					}
@@ -175,4 +364,27 @@ public class CSymbolsContentProvider extends CNavigatorContentProvider {
 		}
 	}
 
+	/**
+	 * Progress monitor which cancels the pending symbols request when it gets canceled.
+	 */
+	private static final class RequestMonitor extends NullProgressMonitor {
+		private volatile CompletableFuture<?> request;
+
+		void setRequest(CompletableFuture<?> request) {
+			this.request = request;
+			if (isCanceled()) {
+				request.cancel(true);
+			}
+		}
+
+		@Override
+		public void setCanceled(boolean cancelled) {
+			super.setCanceled(cancelled);
+			var current = request;
+			if (cancelled && current != null) {
+				current.cancel(true);
+			}
+		}
+	}
+
 }
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.internal.ui.navigator;
+
+import org.eclipse.cdt.lsp.internal.messages.LspUiMessages;
+import org.eclipse.jface.viewers.StyledString;
+import org.eclipse.lsp4e.outline.SymbolsLabelProvider;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.graphics.Image;
+
+/**
+ * Adds the label of the {@link SymbolsPage} cursor to the symbol labels.
+ */
+public class CSymbolsLabelProvider extends SymbolsLabelProvider {
+
+	@Override
+	public String getText(Object element) {
+		if (element instanceof SymbolsPage page) {
+			return getPageLabel(page);
+		}
+		return super.getText(element);
+	}
+
+	@Override
+	public StyledString getStyledText(Object element) {
+		if (element instanceof SymbolsPage page) {
+			return new StyledString(getPageLabel(page), StyledString.QUALIFIER_STYLER);
+		}
+		return super.getStyledText(element);
+	}
+
+	@Override
+	public Image getImage(Object element) {
+		if (element instanceof SymbolsPage) {
+			return null;
+		}
+		return super.getImage(element);
+	}
+
+	private static String getPageLabel(SymbolsPage page) {
+		return NLS.bind(LspUiMessages.NavigatorView_NextPage, Math.min(SymbolsManager.PAGE_SIZE, page.remaining()),
+				page.remaining());
+	}
+
+}
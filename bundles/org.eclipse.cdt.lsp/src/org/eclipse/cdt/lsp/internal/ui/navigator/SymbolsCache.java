@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.internal.ui.navigator;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded cache with least recently used eviction. The cache is limited by the number of entries
+ * and by the sum of the estimated entry weights, whichever limit is reached first.
+ * The weight of an entry is computed when it is added and can be recomputed via {@link #reweigh(Object)}
+ * after the value has changed.
+ * All methods are thread safe, they synchronize on a single lock and run in constant time,
+ * except for evictions.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class SymbolsCache<K, V> {
+
+	private final int maxEntries;
+	private final long maxWeight;
+	private final ToLongFunction<V> weigher;
+	// access ordered: the eldest entry is the least recently used one
+	private final LinkedHashMap<K, Weighted<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private long weight;
+
+	private static final class Weighted<V> {
+		final V value;
+		long weight;
+
+		Weighted(V value, long weight) {
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * @param maxEntries maximum number of entries, must be positive
+	 * @param maxWeight maximum sum of all entry weights, must be positive
+	 * @param weigher computes the estimated weight of a value
+	 */
+	public SymbolsCache(int maxEntries, long maxWeight, ToLongFunction<V> weigher) {
+		if (maxEntries <= 0 || maxWeight <= 0) {
+			throw new IllegalArgumentException("Cache limits must be positive"); //$NON-NLS-1$
+		}
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		this.weigher = Objects.requireNonNull(weigher);
+	}
+
+	/**
+	 * Returns the cached value and marks it as recently used.
+	 *
+	 * @param key
+	 * @return the cached value or <code>null</code>
+	 */
+	public V get(K key) {
+		synchronized (entries) {
+			var entry = entries.get(key);
+			if (entry == null) {
+				misses.incrementAndGet();
+				return null;
+			}
+			hits.incrementAndGet();
+			return entry.value;
+		}
+	}
+
+	/**
+	 * Returns the cached value without affecting the eviction order or the statistics.
+	 *
+	 * @param key
+	 * @return the cached value or <code>null</code>
+	 */
+	public V peek(K key) {
+		synchronized (entries) {
+			var entry = entries.get(key);
+			return entry != null ? entry.value : null;
+		}
+	}
+
+	/**
+	 * Returns the cached value or computes, caches and returns a new one.
+	 * The computation is performed while holding the cache lock, therefore it has to be cheap.
+	 *
+	 * @param key
+	 * @param factory creates the value when absent
+	 * @return the cached or newly created value
+	 */
+	public V computeIfAbsent(K key, Function<K, V> factory) {
+		synchronized (entries) {
+			var entry = entries.get(key);
+			if (entry != null) {
+				hits.incrementAndGet();
+				return entry.value;
+			}
+			misses.incrementAndGet();
+			var value = factory.apply(key);
+			if (value == null) {
+				return null;
+			}
+			var weighted = new Weighted<>(value, weigher.applyAsLong(value));
+			entries.put(key, weighted);
+			weight += weighted.weight;
+			evict(key);
+			return value;
+		}
+	}
+
+	/**
+	 * Recomputes the weight of the cached value after it has changed and evicts entries if a limit is exceeded.
+	 *
+	 * @param key
+	 */
+	public void reweigh(K key) {
+		synchronized (entries) {
+			var entry = entries.get(key);
+			if (entry != null) {
+				var newWeight = weigher.applyAsLong(entry.value);
+				weight += newWeight - entry.weight;
+				entry.weight = newWeight;
+				evict(key);
+			}
+		}
+	}
+
+	public V remove(K key) {
+		synchronized (entries) {
+			var entry = entries.remove(key);
+			if (entry == null) {
+				return null;
+			}
+			weight -= entry.weight;
+			return entry.value;
+		}
+	}
+
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+			weight = 0;
+		}
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public long weight() {
+		synchronized (entries) {
+			return weight;
+		}
+	}
+
+	public long hitCount() {
+		return hits.get();
+	}
+
+	public long missCount() {
+		return misses.get();
+	}
+
+	public long evictionCount() {
+		return evictions.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SymbolsCache[entries=%d, weight=%d, hits=%d, misses=%d, evictions=%d]", //$NON-NLS-1$
+				size(), weight(), hitCount(), missCount(), evictionCount());
+	}
+
+	/**
+	 * Evicts least recently used entries until both limits are met. The entry with the given key
+	 * is kept, even if it exceeds the weight limit on its own.
+	 */
+	private void evict(K keep) {
+		Iterator<Map.Entry<K, Weighted<V>>> iterator = entries.entrySet().iterator();
+		while ((entries.size() > maxEntries || weight > maxWeight) && iterator.hasNext()) {
+			var eldest = iterator.next();
+			if (Objects.equals(eldest.getKey(), keep)) {
+				continue;
+			}
+			iterator.remove();
+			weight -= eldest.getValue().weight;
+			evictions.incrementAndGet();
+		}
+	}
+
+}
@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.internal.ui.navigator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.jface.viewers.AbstractTreeViewer;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.lsp4e.outline.SymbolsModel.DocumentSymbolWithURI;
+import org.eclipse.lsp4j.SymbolKind;
+import org.eclipse.swt.widgets.TreeItem;
+
+/**
+ * Structural difference between the symbols shown for a tree node and the newly fetched symbols.
+ * Symbols are matched by their parent, name, kind and the number of preceding siblings with the same name and kind.
+ * Contrary to the ranges, this key does not change when lines are inserted or removed above a symbol.
+ * Matched symbols which differ otherwise (e.g. ranges, detail or children) are updated in place, matched symbols
+ * which changed their order are moved, all other symbols are inserted or removed.
+ */
+public final class SymbolsDiff {
+	private static final Object[] NO_CHILDREN = new Object[0];
+
+	private record Key(String name, SymbolKind kind, int occurrence, Object other) {
+	}
+
+	/**
+	 * Insertion of {@code newElement} at {@code index}, moving {@code oldElement} if not <code>null</code>.
+	 */
+	private record Insertion(Object oldElement, Object newElement, int index) {
+	}
+
+	/**
+	 * Replacement of {@code oldElement} at {@code index} by the matching {@code newElement}.
+	 */
+	private record Update(Object oldElement, Object newElement, int index) {
+	}
+
+	/**
+	 * Expanded descendants of an element by their keys, to expand the matching descendants of the updated element.
+	 */
+	private record Expansion(Map<Key, Expansion> children) {
+
+		static Expansion of(AbstractTreeViewer viewer, Object element) {
+			if (!viewer.getExpandedState(element)) {
+				return null;
+			}
+			Map<Key, Expansion> expanded = new HashMap<>();
+			var children = children(element);
+			var keys = keys(children);
+			for (int i = 0; i < children.length; i++) {
+				var expansion = of(viewer, children[i]);
+				if (expansion != null) {
+					expanded.put(keys.get(i), expansion);
+				}
+			}
+			return new Expansion(expanded);
+		}
+
+		void restore(AbstractTreeViewer viewer, Object element) {
+			viewer.setExpandedState(element, true);
+			if (children.isEmpty()) {
+				return;
+			}
+			var elementChildren = children(element);
+			var keys = keys(elementChildren);
+			for (int i = 0; i < elementChildren.length; i++) {
+				var expansion = children.get(keys.get(i));
+				if (expansion != null) {
+					expansion.restore(viewer, elementChildren[i]);
+				}
+			}
+		}
+	}
+
+	private final List<Object> removals = new ArrayList<>();
+	// ordered by index:
+	private final List<Insertion> insertions = new ArrayList<>();
+	private final List<Update> updates = new ArrayList<>();
+
+	private SymbolsDiff() {
+	}
+
+	/**
+	 * Computes the difference between the shown and the new children of a tree node.
+	 *
+	 * @param oldChildren children currently shown in the tree
+	 * @param newChildren children to be shown
+	 * @return the difference
+	 */
+	public static SymbolsDiff compute(Object[] oldChildren, Object[] newChildren) {
+		var diff = new SymbolsDiff();
+		var oldKeys = keys(oldChildren);
+		Map<Key, Integer> unmatched = new HashMap<>(oldChildren.length * 2);
+		for (int i = 0; i < oldChildren.length; i++) {
+			unmatched.put(oldKeys.get(i), i);
+		}
+		var newKeys = keys(newChildren);
+		var matches = new int[newChildren.length];
+		for (int i = 0; i < newChildren.length; i++) {
+			var match = unmatched.remove(newKeys.get(i));
+			matches[i] = match != null ? match : -1;
+		}
+		// the longest sequence of matches in the old order stays, the other matches are moved:
+		var stable = longestIncreasing(matches);
+		for (int i = 0; i < newChildren.length; i++) {
+			var element = newChildren[i];
+			if (matches[i] < 0) {
+				diff.insertions.add(new Insertion(null, element, i));
+			} else if (!stable[i]) {
+				diff.insertions.add(new Insertion(oldChildren[matches[i]], element, i));
+			} else if (!Objects.equals(oldChildren[matches[i]], element)) {
+				diff.updates.add(new Update(oldChildren[matches[i]], element, i));
+			}
+		}
+		unmatched.values().stream().sorted().forEach(i -> diff.removals.add(oldChildren[i]));
+		return diff;
+	}
+
+	/**
+	 * @return <code>true</code> if the shown children are up to date
+	 */
+	public boolean isEmpty() {
+		return removals.isEmpty() && insertions.isEmpty() && updates.isEmpty();
+	}
+
+	/**
+	 * @return number of tree operations needed to apply this difference
+	 */
+	public int operations() {
+		return removals.size() + insertions.size() + updates.size();
+	}
+
+	public List<Object> removals() {
+		return Collections.unmodifiableList(removals);
+	}
+
+	/**
+	 * Applies the difference to the children of the given parent in the viewer. Must be called in the UI thread.
+	 * The expansion state of moved and updated elements and of their descendants is preserved.
+	 *
+	 * @param viewer
+	 * @param parent
+	 */
+	public void applyTo(AbstractTreeViewer viewer, Object parent) {
+		// the expansion state is taken before the elements are replaced:
+		Map<Object, Expansion> expansions = new IdentityHashMap<>();
+		List<Object> removed = new ArrayList<>(removals);
+		for (var insertion : insertions) {
+			if (insertion.oldElement() != null) {
+				keepExpansion(viewer, insertion.oldElement(), insertion.newElement(), expansions);
+				removed.add(insertion.oldElement());
+			}
+		}
+		for (var update : updates) {
+			keepExpansion(viewer, update.oldElement(), update.newElement(), expansions);
+		}
+		if (!removed.isEmpty()) {
+			viewer.remove(parent, removed.toArray());
+		}
+		for (var insertion : insertions) {
+			viewer.insert(parent, insertion.newElement(), insertion.index());
+		}
+		for (var update : updates) {
+			replace(viewer, parent, update);
+		}
+		expansions.forEach((element, expansion) -> expansion.restore(viewer, element));
+	}
+
+	private static void keepExpansion(AbstractTreeViewer viewer, Object oldElement, Object newElement,
+			Map<Object, Expansion> expansions) {
+		var expansion = Expansion.of(viewer, oldElement);
+		if (expansion != null) {
+			expansions.put(newElement, expansion);
+		}
+	}
+
+	private static void replace(AbstractTreeViewer viewer, Object parent, Update update) {
+		if (viewer instanceof TreeViewer treeViewer
+				&& treeViewer.testFindItem(update.oldElement()) instanceof TreeItem item) {
+			var parentItem = item.getParentItem();
+			int index = parentItem != null ? parentItem.indexOf(item) : item.getParent().indexOf(item);
+			// the item is kept, only its element and label are updated:
+			treeViewer.replace(parent, index, update.newElement());
+			if (children(update.oldElement()).length > 0 || children(update.newElement()).length > 0) {
+				// prunes collapsed children, the expanded ones are expanded again from the kept expansion state:
+				treeViewer.refresh(update.newElement());
+			}
+		} else {
+			viewer.remove(parent, new Object[] { update.oldElement() });
+			viewer.insert(parent, update.newElement(), update.index());
+		}
+	}
+
+	private static Object[] children(Object element) {
+		if (element instanceof DocumentSymbolWithURI symbolWithUri && symbolWithUri.symbol.getChildren() != null) {
+			return symbolWithUri.symbol.getChildren().stream()
+					.map(child -> new DocumentSymbolWithURI(child, symbolWithUri.uri)).toArray();
+		}
+		return NO_CHILDREN;
+	}
+
+	private static List<Key> keys(Object[] elements) {
+		Map<Key, Integer> occurrences = new HashMap<>();
+		List<Key> keys = new ArrayList<>(elements.length);
+		for (var element : elements) {
+			var key = element instanceof DocumentSymbolWithURI symbolWithUri
+					? new Key(symbolWithUri.symbol.getName(), symbolWithUri.symbol.getKind(), 0, null)
+					// not a symbol, e.g. an error element or a page cursor:
+					: new Key(null, null, 0, element);
+			int occurrence = occurrences.merge(key, 1, Integer::sum) - 1;
+			keys.add(occurrence == 0 ? key : new Key(key.name(), key.kind(), occurrence, key.other()));
+		}
+		return keys;
+	}
+
+	/**
+	 * @param matches old index of each new element or -1
+	 * @return whether a new element belongs to the longest sequence of matches with increasing old indices
+	 */
+	private static boolean[] longestIncreasing(int[] matches) {
+		int length = 0;
+		// new index of the smallest last element of the increasing sequences of each length:
+		var tails = new int[matches.length];
+		var previous = new int[matches.length];
+		for (int i = 0; i < matches.length; i++) {
+			if (matches[i] < 0) {
+				continue;
+			}
+			int low = 0;
+			int high = length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (matches[tails[middle]] < matches[i]) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			previous[i] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = i;
+			if (low == length) {
+				length++;
+			}
+		}
+		var result = new boolean[matches.length];
+		for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+			result[i] = true;
+		}
+		return result;
+	}
+
+}
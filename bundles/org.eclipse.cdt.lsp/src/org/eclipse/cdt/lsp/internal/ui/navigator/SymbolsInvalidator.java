@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.internal.ui.navigator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.IFileBuffer;
+import org.eclipse.core.filebuffers.IFileBufferListener;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.lsp4e.LSPEclipseUtils;
+
+/**
+ * Translates workspace and editor events into invalidations of cached translation unit symbols:
+ * <ul>
+ * <li>resource deltas: saves, changes on disk (e.g. a git checkout) and deletions,</li>
+ * <li>document changes of opened buffers, i.e. the edits that are sent to the language server via <code>didChange</code>,</li>
+ * <li>include relationships: a changed header invalidates the units which include it, directly or indirectly.</li>
+ * </ul>
+ * Invalidations are collected and reported in batches.
+ * Include relationships are recorded when symbols are fetched and matched by the file name of the header,
+ * which may invalidate more units than necessary but never misses one.
+ */
+final class SymbolsInvalidator implements IResourceChangeListener {
+	private static final long BATCH_DELAY = 300; // ms
+	private static final Pattern INCLUDE = Pattern.compile("^\\s*#\\s*(?:include|import)\\s*[<\"]([^>\"]+)[>\"]"); //$NON-NLS-1$
+
+	private final Predicate<URI> cached;
+	private final Consumer<Set<URI>> changed;
+	private final Consumer<URI> removed;
+	// header file name -> units including a header with that name
+	private final Map<String, Set<URI>> includedBy = new ConcurrentHashMap<>();
+	// unit -> included header file names
+	private final Map<URI, Set<String>> includes = new ConcurrentHashMap<>();
+	private final Map<IDocument, URI> documents = new ConcurrentHashMap<>();
+	private final Set<URI> pending = new LinkedHashSet<>();
+
+	private final Job batchJob = new Job("Invalidate symbols") { //$NON-NLS-1$
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			Set<URI> batch;
+			synchronized (pending) {
+				batch = Set.copyOf(pending);
+				pending.clear();
+			}
+			if (!batch.isEmpty()) {
+				changed.accept(batch);
+			}
+			return Status.OK_STATUS;
+		}
+
+	};
+
+	private final IDocumentListener documentListener = new IDocumentListener() {
+
+		@Override
+		public void documentAboutToBeChanged(DocumentEvent event) {
+		}
+
+		@Override
+		public void documentChanged(DocumentEvent event) {
+			var uri = documents.get(event.getDocument());
+			if (uri != null) {
+				invalidate(uri);
+			}
+		}
+	};
+
+	private final IFileBufferListener bufferListener = new FileBufferListenerAdapter() {
+
+		@Override
+		public void bufferCreated(IFileBuffer buffer) {
+			connect(buffer);
+		}
+
+		@Override
+		public void bufferDisposed(IFileBuffer buffer) {
+			if (buffer instanceof ITextFileBuffer textBuffer) {
+				var document = textBuffer.getDocument();
+				if (document != null && documents.remove(document) != null) {
+					document.removeDocumentListener(documentListener);
+				}
+			}
+		}
+	};
+
+	/**
+	 * @param cached tests whether the symbols of a unit are cached, events of other files are ignored unless they are included
+	 * @param changed receives batches of units whose symbols are outdated
+	 * @param removed receives units which have been deleted
+	 */
+	SymbolsInvalidator(Predicate<URI> cached, Consumer<Set<URI>> changed, Consumer<URI> removed) {
+		this.cached = cached;
+		this.changed = changed;
+		this.removed = removed;
+		batchJob.setSystem(true);
+	}
+
+	void start() {
+		var manager = FileBuffers.getTextFileBufferManager();
+		manager.addFileBufferListener(bufferListener);
+		for (var buffer : manager.getFileBuffers()) {
+			connect(buffer);
+		}
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
+	}
+
+	void stop() {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+		FileBuffers.getTextFileBufferManager().removeFileBufferListener(bufferListener);
+		documents.keySet().forEach(document -> document.removeDocumentListener(documentListener));
+		documents.clear();
+		batchJob.cancel();
+	}
+
+	/**
+	 * Records the headers included by the given unit.
+	 *
+	 * @param unit
+	 * @param document content of the unit
+	 */
+	void recordIncludes(URI unit, IDocument document) {
+		recordIncludes(unit, new StringReader(document.get()));
+	}
+
+	/**
+	 * Records the headers included by the given unit, reading the file content.
+	 *
+	 * @param file
+	 */
+	void recordIncludes(IFile file) {
+		try {
+			recordIncludes(file.getLocationURI(), new InputStreamReader(file.getContents(true), file.getCharset()));
+		} catch (CoreException | IOException e) {
+			Platform.getLog(getClass()).warn(e.getMessage());
+		}
+	}
+
+	/**
+	 * Forgets the include relationships of the given unit.
+	 *
+	 * @param unit
+	 */
+	void forget(URI unit) {
+		var names = includes.remove(unit);
+		if (names != null) {
+			for (var name : names) {
+				includedBy.computeIfPresent(name, (n, units) -> {
+					units.remove(unit);
+					return units.isEmpty() ? null : units;
+				});
+			}
+		}
+	}
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		var delta = event.getDelta();
+		if (delta == null) {
+			return;
+		}
+		try {
+			delta.accept(d -> {
+				var resource = d.getResource();
+				if (resource.getType() != IResource.FILE) {
+					return true;
+				}
+				var uri = resource.getLocationURI();
+				if (uri == null) {
+					return false;
+				}
+				if (d.getKind() == IResourceDelta.REMOVED) {
+					removed.accept(uri);
+					invalidateIncluders(uri);
+				} else if (d.getKind() == IResourceDelta.ADDED
+						|| (d.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0) {
+					invalidate(uri);
+				}
+				return false;
+			});
+		} catch (CoreException e) {
+			Platform.getLog(getClass()).error(e.getMessage(), e);
+		}
+	}
+
+	private void connect(IFileBuffer buffer) {
+		if (buffer instanceof ITextFileBuffer textBuffer && textBuffer.getDocument() != null) {
+			var uri = LSPEclipseUtils.toUri(buffer);
+			if (uri != null && documents.putIfAbsent(textBuffer.getDocument(), uri) == null) {
+				textBuffer.getDocument().addDocumentListener(documentListener);
+			}
+		}
+	}
+
+	private void invalidate(URI uri) {
+		if (cached.test(uri)) {
+			schedule(Set.of(uri));
+		}
+		invalidateIncluders(uri);
+	}
+
+	private void invalidateIncluders(URI header) {
+		// the header may be included via other headers, follow the relationship transitively:
+		Set<URI> affected = new HashSet<>();
+		var queue = new ArrayDeque<URI>();
+		queue.add(header);
+		while (!queue.isEmpty()) {
+			var units = includedBy.get(fileName(queue.poll()));
+			if (units != null) {
+				for (var unit : units) {
+					if (affected.add(unit)) {
+						queue.add(unit);
+					}
+				}
+			}
+		}
+		affected.removeIf(uri -> uri.equals(header) || !cached.test(uri));
+		if (!affected.isEmpty()) {
+			schedule(affected);
+		}
+	}
+
+	private void schedule(Set<URI> uris) {
+		synchronized (pending) {
+			pending.addAll(uris);
+		}
+		batchJob.schedule(BATCH_DELAY);
+	}
+
+	private void recordIncludes(URI unit, Reader content) {
+		Set<String> names = new HashSet<>();
+		try (var reader = new BufferedReader(content)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				var matcher = INCLUDE.matcher(line);
+				if (matcher.find()) {
+					names.add(fileName(matcher.group(1)));
+				}
+			}
+		} catch (IOException e) {
+			Platform.getLog(getClass()).warn(e.getMessage());
+			return;
+		}
+		forget(unit);
+		includes.put(unit, names);
+		for (var name : names) {
+			includedBy.computeIfAbsent(name, n -> ConcurrentHashMap.newKeySet()).add(unit);
+		}
+	}
+
+	private static String fileName(URI uri) {
+		return fileName(uri.getPath() != null ? uri.getPath() : uri.toString());
+	}
+
+	private static String fileName(String path) {
+		int separator = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+		return path.substring(separator + 1);
+	}
+
+}
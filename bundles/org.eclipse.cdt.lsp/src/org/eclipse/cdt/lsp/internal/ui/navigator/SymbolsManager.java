@@ -13,28 +13,31 @@
 package org.eclipse.cdt.lsp.internal.ui.navigator;
 
 import java.net.URI;
-import java.util.HashMap;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 import org.eclipse.cdt.core.model.ITranslationUnit;
-import org.eclipse.cdt.lsp.util.LspUtils;
+import org.eclipse.cdt.lsp.plugin.LspPlugin;
+import org.eclipse.cdt.lsp.util.LanguageServerWrappers;
 import org.eclipse.core.filebuffers.FileBuffers;
-import org.eclipse.core.filebuffers.IFileBuffer;
-import org.eclipse.core.filebuffers.IFileBufferListener;
 import org.eclipse.core.filebuffers.LocationKind;
 import org.eclipse.core.resources.IFile;
-import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Platform;
-import org.eclipse.core.runtime.content.IContentType;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.text.IDocument;
@@ -53,12 +56,92 @@ import org.eclipse.ui.progress.IElementCollector;
 
 public class SymbolsManager implements IDeferredWorkbenchAdapter {
 	protected static final Object[] EMPTY = new Object[0];
-	private final ReentrantLock lock = new ReentrantLock();
+	/**
+	 * Maximum number of translation units whose symbols are kept in memory.
+	 */
+	private static final int MAX_CACHED_UNITS = Integer.getInteger("org.eclipse.cdt.lsp.navigator.maxCachedUnits", //$NON-NLS-1$
+			1000);
+	/**
+	 * Maximum number of symbols of all translation units kept in memory.
+	 */
+	private static final long MAX_CACHED_SYMBOLS = Long.getLong("org.eclipse.cdt.lsp.navigator.maxCachedSymbols", //$NON-NLS-1$
+			200_000);
+	/**
+	 * Maximum number of document symbol requests sent in parallel to the language server.
+	 */
+	private static final int MAX_PARALLEL_FETCHES = Integer.getInteger("org.eclipse.cdt.lsp.navigator.maxParallelFetches", //$NON-NLS-1$
+			4);
+	/**
+	 * Maximum number of documents kept connected to the language server for fetching symbols of files which are not opened in an editor.
+	 */
+	private static final int MAX_BACKGROUND_DOCUMENTS = Integer
+			.getInteger("org.eclipse.cdt.lsp.navigator.maxBackgroundDocuments", 20); //$NON-NLS-1$
+	/**
+	 * Number of top level symbols of a translation unit shown at once in the Project Explorer. Prevents longer UI freezes.
+	 */
+	public static final int PAGE_SIZE = Integer.getInteger("org.eclipse.cdt.lsp.navigator.pageSize", 100); //$NON-NLS-1$
+	private static final long BACKGROUND_DOCUMENTS_TIMEOUT = 10_000; // ms
+	private static final long LANGUAGE_SERVER_TIMEOUT = 1000; // ms
+	private final Queue<CompletableFuture<Void>> fetchPermitWaiters = new ArrayDeque<>();
+	private int availableFetchPermits = Math.max(1, MAX_PARALLEL_FETCHES);
+	/**
+	 * Fetches in progress per translation unit URI. Concurrent fetches of the same unit share one request.
+	 */
+	private final ConcurrentHashMap<URI, PendingFetch> pendingFetches = new ConcurrentHashMap<>();
+
+	/**
+	 * A document symbol request shared by all callers which requested the same translation unit.
+	 * The request is cancelled when all callers have cancelled.
+	 */
+	private static final class PendingFetch {
+		final CompletableFuture<Void> done = new CompletableFuture<>();
+		private CompletableFuture<?> request;
+		private int subscribers;
+		private boolean cancelled;
+
+		synchronized void subscribe() {
+			subscribers++;
+		}
+
+		synchronized void unsubscribe() {
+			if (--subscribers <= 0 && !done.isDone()) {
+				cancelled = true;
+				if (request != null) {
+					request.cancel(true);
+				}
+			}
+		}
+
+		synchronized boolean isCancelled() {
+			return cancelled;
+		}
+
+		synchronized <T> CompletableFuture<T> request(CompletableFuture<T> request) {
+			this.request = request;
+			if (cancelled) {
+				request.cancel(true);
+			}
+			return request;
+		}
+	}
 
 	class CompileUnit {
 		public final IFile file;
 		public final SymbolsModel symbolsModel;
 		public volatile boolean isDirty = true;
+		/**
+		 * Estimated weight of this unit: the number of symbols plus one for the unit itself.
+		 */
+		public volatile long weight = 1;
+		/**
+		 * Incremented on each invalidation, a fetch only resets the dirty flag if no invalidation happened meanwhile.
+		 */
+		public final AtomicLong generation = new AtomicLong();
+		/**
+		 * Top level symbols of the last response, <code>null</code> if the response was not hierarchical.
+		 * Used to create the elements of a page without creating the elements of all symbols.
+		 */
+		private volatile List<DocumentSymbol> rootSymbols;
 
 		public CompileUnit(IFile file) {
 			this.file = file;
@@ -73,65 +156,127 @@ public class SymbolsManager implements IDeferredWorkbenchAdapter {
 		public Object[] getChildren(Object parentElement) {
 			return symbolsModel.getChildren(parentElement);
 		}
-	}
-
-	private final IFileBufferListener fileBufferListener = new FileBufferListenerAdapter() {
 
-		@Override
-		public void dirtyStateChanged(IFileBuffer buffer, boolean isDirty) {
-			try {
-				// Note: resourceExists must be called prior to buffer.getContentType(),
-				// because getContentType() throws an exception when the underlying resource does not exists.
-				// This can be the case if 'Save as..' has been performed on a file.
-				// Then isDirty is true and dirtyStateChanged gets called for the new, not yet existing file.
-				if (isDirty && resourceExists(buffer) && isCElement(buffer.getContentType())) {
-					var uri = LSPEclipseUtils.toUri(buffer);
-					if (uri != null) {
-						var cachedCompileUnit = getCompileUnit(uri);
-						if (cachedCompileUnit != null) {
-							cachedCompileUnit.isDirty = true;
-						}
-					}
-				}
-			} catch (CoreException e) {
-				Platform.getLog(getClass()).error(e.getMessage(), e);
+		/**
+		 * Returns the elements of the top level symbols in the given window. If there are more symbols
+		 * after the window, a {@link SymbolsPage} cursor is appended.
+		 */
+		public Object[] getElements(ITranslationUnit unit, int offset, int limit) {
+			var roots = rootSymbols;
+			if (roots == null) {
+				// flat response, the hierarchy is only known by the model:
+				var elements = getElements();
+				return page(unit, offset, limit, elements.length, i -> elements[i]);
 			}
-
+			var uri = file.getLocationURI();
+			return page(unit, offset, limit, roots.size(), i -> new DocumentSymbolWithURI(roots.get(i), uri));
 		}
+	}
+
+	private final SymbolsCache<URI, CompileUnit> cachedSymbols = new SymbolsCache<>(MAX_CACHED_UNITS,
+			MAX_CACHED_SYMBOLS, unit -> unit.weight);
+	private final SymbolsStore store = new SymbolsStore(storeLocation());
+	private final BackgroundOutlineSession outlineSession = new BackgroundOutlineSession(MAX_BACKGROUND_DOCUMENTS,
+			BACKGROUND_DOCUMENTS_TIMEOUT, file -> pendingFetches.containsKey(file.getLocationURI()));
+	private final SymbolsInvalidator invalidator = new SymbolsInvalidator(uri -> cachedSymbols.peek(uri) != null,
+			this::invalidate, this::remove);
+	private final List<Consumer<Set<URI>>> invalidationListeners = new CopyOnWriteArrayList<>();
+	// number of connected viewers, guarded by this:
+	private int viewers;
+	public static final SymbolsManager INSTANCE = new SymbolsManager();
 
-		private boolean resourceExists(IFileBuffer buffer) {
-			return Optional.ofNullable(LSPEclipseUtils.getFile(buffer.getLocation())).map(file -> file.exists())
-					.orElse(false);
+	/**
+	 * Registers a viewer which shows symbols. The cached symbols are invalidated while at least one viewer is connected.
+	 */
+	public synchronized void connect() {
+		if (viewers++ == 0) {
+			invalidator.start();
 		}
+	}
 
-		private boolean isCElement(IContentType contentType) {
-			if (contentType == null) {
-				return false;
-			}
-			return LspUtils.isCContentType(contentType.getId());
+	/**
+	 * Unregisters a viewer registered by {@link #connect()}. When the last viewer has been disconnected,
+	 * the invalidation is stopped, the cached symbols, which are not kept up to date anymore, are discarded
+	 * and the documents loaded for fetching symbols are released.
+	 */
+	public synchronized void disconnect() {
+		if (viewers > 0 && --viewers == 0) {
+			invalidator.stop();
+			outlineSession.dispose();
+			cachedSymbols.clear();
 		}
-	};
+	}
 
-	private volatile HashMap<URI, CompileUnit> cachedSymbols = new HashMap<>();
-	public static final SymbolsManager INSTANCE = new SymbolsManager();
+	/**
+	 * Adds a listener which is notified in a background thread about batches of translation units whose cached symbols
+	 * have become outdated, e.g. to refresh them proactively.
+	 *
+	 * @param listener receives the location URIs of the outdated translation units
+	 */
+	public void addInvalidationListener(Consumer<Set<URI>> listener) {
+		invalidationListeners.add(listener);
+	}
 
-	public SymbolsManager() {
-		FileBuffers.getTextFileBufferManager().addFileBufferListener(fileBufferListener);
+	public void removeInvalidationListener(Consumer<Set<URI>> listener) {
+		invalidationListeners.remove(listener);
 	}
 
-	public void dispose() {
-		cachedSymbols.clear();
-		FileBuffers.getTextFileBufferManager().removeFileBufferListener(fileBufferListener);
+	private void invalidate(Set<URI> uris) {
+		Set<URI> invalidated = new HashSet<>();
+		for (var uri : uris) {
+			var compileUnit = cachedSymbols.peek(uri);
+			if (compileUnit != null) {
+				compileUnit.generation.incrementAndGet();
+				compileUnit.isDirty = true;
+				invalidated.add(uri);
+			}
+		}
+		if (!invalidated.isEmpty()) {
+			invalidationListeners.forEach(listener -> listener.accept(invalidated));
+		}
+	}
+
+	private void remove(URI uri) {
+		cachedSymbols.remove(uri);
+		store.remove(uri);
+		invalidator.forget(uri);
 	}
 
+	/**
+	 * Starts fetching the symbols of the given translation unit and returns immediately.
+	 * The symbols are passed to the {@code collector} when the language server has responded.
+	 */
 	@Override
 	public void fetchDeferredChildren(Object object, IElementCollector collector, IProgressMonitor monitor) {
-		var children = getCompileUnitElements(object);
-		if (monitor.isCanceled() || children.length == 0) {
-			return;
-		}
-		collector.add(children, monitor);
-		collector.done();
+		fetchDeferredChildrenAsync(object, collector, monitor);
+	}
+
+	/**
+	 * Non blocking variant of {@link #fetchDeferredChildren(Object, IElementCollector, IProgressMonitor)}.
+	 * Cancelling the returned future cancels the pending document symbol request, unless
+	 * the same translation unit is requested by another caller too.
+	 *
+	 * @param object translation unit
+	 * @param collector receives the symbols, {@link IElementCollector#done()} is called in any case
+	 * @param monitor when canceled, the symbols are not passed to the {@code collector}
+	 * @return the future symbols of the translation unit
+	 */
+	public CompletableFuture<Object[]> fetchDeferredChildrenAsync(Object object, IElementCollector collector,
+			IProgressMonitor monitor) {
+		var elements = getCompileUnitElements(object);
+		elements.whenComplete((children, error) -> {
+			if (error == null && !monitor.isCanceled() && children.length > 0) {
+				collector.add(children, monitor);
+			}
+			collector.done();
+		});
+		return elements;
+	}
+
+	private static Path storeLocation() {
+		return Optional.ofNullable(LspPlugin.getDefault())//
+				.map(plugin -> plugin.getStateLocation().append("symbols").toFile().toPath())// //$NON-NLS-1$
+				.orElse(null);
 	}
 
 	@Override
@@ -149,11 +294,32 @@ public class SymbolsManager implements IDeferredWorkbenchAdapter {
 		return null;
 	}
 
+	/**
+	 * Returns the first page of the cached symbols of the given translation unit.
+	 *
+	 * @param translationUnit
+	 * @return the elements of the first {@link #PAGE_SIZE} symbols, followed by a {@link SymbolsPage} if there are more,
+	 * or <code>null</code> if the symbols are not cached
+	 */
 	public Object[] getTranslationUnitElements(ITranslationUnit translationUnit) {
+		return getTranslationUnitElements(translationUnit, 0, PAGE_SIZE);
+	}
+
+	/**
+	 * Returns a page of the cached symbols of the given translation unit.
+	 * Only the elements of the requested page are created.
+	 *
+	 * @param translationUnit
+	 * @param offset index of the first top level symbol
+	 * @param limit maximum number of symbols
+	 * @return the elements of the page, followed by a {@link SymbolsPage} if there are more symbols,
+	 * or <code>null</code> if the symbols are not cached
+	 */
+	public Object[] getTranslationUnitElements(ITranslationUnit translationUnit, int offset, int limit) {
 		if (translationUnit.getFile() != null) {
 			CompileUnit compileUnit = getCompileUnit(translationUnit.getFile().getLocationURI());
 			if (compileUnit != null) {
-				return compileUnit.getElements();
+				return compileUnit.getElements(translationUnit, offset, limit);
 			}
 		}
 		return null;
@@ -176,6 +342,12 @@ public class SymbolsManager implements IDeferredWorkbenchAdapter {
 			if (unit != null) {
 				return unit.getChildren(parentElement);
 			}
+			// the unit has been evicted while its symbols are still shown, the element holds its own children:
+			var children = documentSymbolWithUri.symbol.getChildren();
+			if (children != null) {
+				return children.stream().map(child -> new DocumentSymbolWithURI(child, documentSymbolWithUri.uri))
+						.toArray();
+			}
 		}
 		return EMPTY;
 	}
@@ -202,14 +374,22 @@ public class SymbolsManager implements IDeferredWorkbenchAdapter {
 		return getCompileUnit(key, null);
 	}
 
-	private synchronized CompileUnit getCompileUnit(URI key, IFile file) {
+	private CompileUnit getCompileUnit(URI key, IFile file) {
 		if (file != null) {
 			return cachedSymbols.computeIfAbsent(key, uri -> new CompileUnit(file));
 		}
 		return cachedSymbols.get(key);
 	}
 
-	private Object[] getCompileUnitElements(Object object) {
+	/**
+	 * Returns the first page of symbols of the given translation unit, fetching them from the language server if they are outdated.
+	 * Cancelling the returned future cancels the pending document symbol request, unless
+	 * the same translation unit is requested by another caller too.
+	 *
+	 * @param object translation unit
+	 * @return the future symbols of the translation unit
+	 */
+	public CompletableFuture<Object[]> getCompileUnitElements(Object object) {
 		if (object instanceof ITranslationUnit unit) {
 			CompileUnit compileUnit = null;
 			if (unit.getFile() != null) {
@@ -218,67 +398,200 @@ public class SymbolsManager implements IDeferredWorkbenchAdapter {
 				Platform.getLog(getClass()).error("Cannot fetch elements of translation unit " + unit.getElementName()); //$NON-NLS-1$
 			}
 			if (compileUnit == null) {
-				return EMPTY;
+				return CompletableFuture.completedFuture(EMPTY);
 			}
-			refreshTreeContentFromLS(compileUnit);
-			return compileUnit.getElements();
+			return refreshTreeContentFromLS(unit, compileUnit);
 		}
-		return EMPTY;
+		return CompletableFuture.completedFuture(EMPTY);
 	}
 
-	private void refreshTreeContentFromLS(CompileUnit compileUnit) {
-		if (compileUnit == null || !compileUnit.isDirty) {
-			return;
+	private CompletableFuture<Object[]> refreshTreeContentFromLS(ITranslationUnit unit, CompileUnit compileUnit) {
+		var result = new CompletableFuture<Object[]>();
+		if (!compileUnit.isDirty) {
+			result.complete(compileUnit.getElements(unit, 0, PAGE_SIZE));
+			return result;
+		}
+		var uri = compileUnit.file.getLocationURI();
+		var created = new PendingFetch();
+		// the same unit may be requested several times, all callers share one request to the language server:
+		final var fetch = pendingFetches.merge(uri, created,
+				(pending, c) -> pending.isCancelled() ? created : pending);
+		if (fetch == created) {
+			startFetch(uri, compileUnit, created);
 		}
-		lock.lock();
+		fetch.subscribe();
+		fetch.done.whenComplete((v, t) -> result.complete(compileUnit.getElements(unit, 0, PAGE_SIZE)));
+		result.whenComplete((r, t) -> {
+			if (result.isCancelled()) {
+				fetch.unsubscribe();
+			}
+		});
+		return result;
+	}
+
+	private void startFetch(URI uri, CompileUnit compileUnit, PendingFetch fetch) {
+		acquireFetchPermit()//
+				.thenComposeAsync(v -> fetchSymbolsFromLS(compileUnit, fetch))//
+				.whenComplete((v, t) -> {
+					releaseFetchPermit();
+					pendingFetches.remove(uri, fetch);
+					fetch.done.complete(null);
+				});
+	}
+
+	private CompletableFuture<Void> fetchSymbolsFromLS(CompileUnit compileUnit, PendingFetch fetch) {
+		if (fetch.isCancelled()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		final long generation = compileUnit.generation.get();
+		if (!isDirtyBuffer(compileUnit.file)) {
+			// symbols stored in a previous session are valid as long as the file content is unchanged:
+			var stored = store.load(compileUnit.file);
+			if (stored.isPresent()) {
+				invalidator.recordIncludes(compileUnit.file);
+				updateSymbols(compileUnit, stored.get(), generation);
+				return CompletableFuture.completedFuture(null);
+			}
+		}
+		final long modificationStamp = compileUnit.file.getModificationStamp();
 		boolean temporaryLoadedDocument = false;
 		try {
 			IDocument document = LSPEclipseUtils.getExistingDocument(compileUnit.file);
 			if (document == null) {
 				document = LSPEclipseUtils.getDocument(compileUnit.file);
-				temporaryLoadedDocument = true;
+				temporaryLoadedDocument = document != null;
 			}
-			if (document != null) {
-				CompletableFuture<List<Either<SymbolInformation, DocumentSymbol>>> symbols;
-				final var params = new DocumentSymbolParams(LSPEclipseUtils.toTextDocumentIdentifier(document));
-				CompletableFuture<Optional<LanguageServerWrapper>> languageServer = LanguageServers
-						.forDocument(document).withCapability(ServerCapabilities::getDocumentSymbolProvider)
-						.computeFirst((w, ls) -> CompletableFuture.completedFuture(w));
-				try {
-					symbols = languageServer.get(1000, TimeUnit.MILLISECONDS).filter(Objects::nonNull)
+			if (document == null) {
+				updateSymbols(compileUnit, null, generation);
+				return CompletableFuture.completedFuture(null);
+			}
+			invalidator.recordIncludes(compileUnit.file.getLocationURI(), document);
+			final var params = new DocumentSymbolParams(LSPEclipseUtils.toTextDocumentIdentifier(document));
+			final var temporary = temporaryLoadedDocument;
+			return findLanguageServer(compileUnit.file, document)
+					.thenCompose(languageServer -> fetch.request(languageServer.filter(Objects::nonNull)
 							.filter(LanguageServerWrapper::isActive)
 							.map(s -> s.execute(ls -> ls.getTextDocumentService().documentSymbol(params)))
-							.orElse(CompletableFuture.completedFuture(null));
-				} catch (TimeoutException | ExecutionException | InterruptedException e) {
-					Platform.getLog(getClass()).error(e.getMessage(), e);
-					symbols = CompletableFuture.completedFuture(null);
-					if (e instanceof InterruptedException) {
-						Thread.currentThread().interrupt();
-					}
-				}
-				symbols.thenAcceptAsync(response -> {
-					compileUnit.symbolsModel.update(response);
-					compileUnit.isDirty = response == null; // reset dirty only when fetch was successful
-				}).join();
-			} else {
-				temporaryLoadedDocument = false;
-				compileUnit.symbolsModel.update(null);
-			}
+							.orElse(CompletableFuture.completedFuture(null))))
+					.thenAccept(response -> {
+						updateSymbols(compileUnit, response, generation);
+						if (response != null && !isDirtyBuffer(compileUnit.file)) {
+							CompletableFuture.runAsync(() -> store.save(compileUnit.file, modificationStamp, response));
+						}
+					}).whenComplete((v, t) -> {
+						if (t != null && !isCancellation(t)) {
+							Platform.getLog(getClass()).error(t.getMessage(), t);
+						}
+						if (temporary) {
+							outlineSession.add(compileUnit.file);
+						}
+					});
 		} catch (Exception e) {
 			Platform.getLog(getClass()).error(e.getMessage(), e);
-		} finally {
 			if (temporaryLoadedDocument) {
-				//Note: the LS will be terminated via the shutdown command by LSP4E, when all documents have been disconnected.
-				//This is the case when no file is opened in the LSP based C/C++ editor.
-				try {
-					FileBuffers.getTextFileBufferManager().disconnect(compileUnit.file.getFullPath(),
-							LocationKind.IFILE, new NullProgressMonitor());
-				} catch (CoreException e) {
-					Platform.getLog(getClass()).error(e.getMessage(), e);
-				}
+				outlineSession.add(compileUnit.file);
+			}
+			return CompletableFuture.completedFuture(null);
+		}
+	}
+
+	private static CompletableFuture<Optional<LanguageServerWrapper>> findLanguageServer(IFile file,
+			IDocument document) {
+		// the language server which has the document opened already is resolved from the cache:
+		var cached = LanguageServerWrappers.forDocument(file.getProject(), file.getLocationURI())
+				.filter(w -> w.getServerCapabilities() != null
+						&& LSPEclipseUtils.hasCapability(w.getServerCapabilities().getDocumentSymbolProvider()));
+		if (cached.isPresent()) {
+			return CompletableFuture.completedFuture(cached);
+		}
+		return LanguageServers.forDocument(document).withCapability(ServerCapabilities::getDocumentSymbolProvider)
+				.computeFirst((w, ls) -> CompletableFuture.completedFuture(w))
+				// do not wait for a language server which is not available within a second:
+				.completeOnTimeout(Optional.empty(), LANGUAGE_SERVER_TIMEOUT, TimeUnit.MILLISECONDS);
+	}
+
+	private void updateSymbols(CompileUnit compileUnit, List<Either<SymbolInformation, DocumentSymbol>> symbols,
+			long generation) {
+		compileUnit.symbolsModel.update(symbols);
+		compileUnit.rootSymbols = symbols != null && symbols.stream().allMatch(Either::isRight)
+				? symbols.stream().map(Either::getRight).toList()
+				: null;
+		compileUnit.weight = 1 + countSymbols(symbols);
+		// reset dirty only when fetch was successful and the unit has not been invalidated meanwhile:
+		compileUnit.isDirty = symbols == null || compileUnit.generation.get() != generation;
+		cachedSymbols.reweigh(compileUnit.file.getLocationURI());
+	}
+
+	private static boolean isDirtyBuffer(IFile file) {
+		var buffer = FileBuffers.getTextFileBufferManager().getTextFileBuffer(file.getFullPath(), LocationKind.IFILE);
+		return buffer != null && buffer.isDirty();
+	}
+
+	private static boolean isCancellation(Throwable t) {
+		return t instanceof CancellationException || t.getCause() instanceof CancellationException;
+	}
+
+	private CompletableFuture<Void> acquireFetchPermit() {
+		synchronized (fetchPermitWaiters) {
+			if (availableFetchPermits > 0) {
+				availableFetchPermits--;
+				return CompletableFuture.completedFuture(null);
+			}
+			var waiter = new CompletableFuture<Void>();
+			fetchPermitWaiters.add(waiter);
+			return waiter;
+		}
+	}
+
+	private void releaseFetchPermit() {
+		CompletableFuture<Void> next;
+		synchronized (fetchPermitWaiters) {
+			next = fetchPermitWaiters.poll();
+			if (next == null) {
+				availableFetchPermits++;
+				return;
+			}
+		}
+		// hand the permit over to the next waiting fetch:
+		next.complete(null);
+	}
+
+	/**
+	 * Creates the elements from {@code offset} to {@code offset + limit} and a cursor to the next page, if any.
+	 */
+	private static Object[] page(ITranslationUnit unit, int offset, int limit, int total,
+			IntFunction<Object> element) {
+		int from = Math.min(Math.max(0, offset), total);
+		int to = (int) Math.min((long) from + Math.max(1, limit), total);
+		var result = new Object[to - from + (to < total ? 1 : 0)];
+		for (int i = from; i < to; i++) {
+			result[i - from] = element.apply(i);
+		}
+		if (to < total) {
+			result[result.length - 1] = new SymbolsPage(unit, to, total);
+		}
+		return result;
+	}
+
+	private static long countSymbols(List<Either<SymbolInformation, DocumentSymbol>> response) {
+		if (response == null) {
+			return 0;
+		}
+		long count = 0;
+		for (var either : response) {
+			count += either.isRight() ? countSymbols(either.getRight()) : 1;
+		}
+		return count;
+	}
+
+	private static long countSymbols(DocumentSymbol symbol) {
+		long count = 1;
+		if (symbol.getChildren() != null) {
+			for (var child : symbol.getChildren()) {
+				count += countSymbols(child);
 			}
-			lock.unlock();
 		}
+		return count;
 	}
 
 }
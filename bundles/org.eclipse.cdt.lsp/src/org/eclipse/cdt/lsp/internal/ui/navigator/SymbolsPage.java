@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.internal.ui.navigator;
+
+import org.eclipse.cdt.core.model.ITranslationUnit;
+
+/**
+ * Cursor into the top level symbols of a translation unit. It is shown as last child of the translation unit
+ * in the Project Explorer, when not all symbols are shown yet. Opening it replaces it by the next page of symbols.
+ *
+ * @param unit the translation unit
+ * @param offset index of the first symbol of the next page
+ * @param total number of top level symbols of the translation unit
+ */
+public record SymbolsPage(ITranslationUnit unit, int offset, int total) {
+
+	public int remaining() {
+		return total - offset;
+	}
+
+}
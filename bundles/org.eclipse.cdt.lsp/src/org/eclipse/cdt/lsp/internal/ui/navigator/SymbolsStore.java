@@ -0,0 +1,376 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.internal.ui.navigator;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.lsp4j.DocumentSymbol;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.SymbolInformation;
+import org.eclipse.lsp4j.SymbolKind;
+import org.eclipse.lsp4j.jsonrpc.messages.Either;
+
+/**
+ * Persistent store for the document symbols of translation units. Each translation unit is stored in a separate
+ * binary file in the given directory, named after the hash of the file location.
+ * An entry is valid as long as the modification stamp of the file is unchanged or, when the stamp changed, as long as
+ * the hash of the file content is unchanged. Invalid entries are deleted on access.
+ * Entries are read via memory mapped buffers and written atomically. On Windows, a mapped file cannot be replaced or
+ * deleted until the buffer has been garbage collected, the entries are read into heap buffers there.
+ * <p>
+ * Removals and the pruning of the store are done by a background job. The store is bounded: entries older than
+ * {@value #MAX_AGE_DAYS} days are deleted and, beyond {@value #MAX_ENTRIES} entries, the oldest ones.
+ * The store is pruned after the first save of a session and after every {@value #PRUNE_INTERVAL} saves.
+ * </p>
+ */
+final class SymbolsStore {
+	private static final int MAGIC = 0x4C535953; // LSYS
+	private static final int VERSION = 1;
+	private static final String SUFFIX = ".sym"; //$NON-NLS-1$
+	private static final String HASH_ALGORITHM = "SHA-256"; //$NON-NLS-1$
+	private static final boolean MAPPED = !Platform.OS_WIN32.equals(Platform.getOS());
+	private static final int MAX_ENTRIES = 20_000;
+	private static final long MAX_AGE_DAYS = 30;
+	private static final int PRUNE_INTERVAL = 500;
+	private final Path directory;
+	private final Queue<Path> removals = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger saves = new AtomicInteger();
+	private volatile boolean prune;
+	private final Job cleanup = Job.create("Clean up stored C/C++ symbols", this::cleanUp); //$NON-NLS-1$
+
+	/**
+	 * @param directory to store the symbols into, may be <code>null</code> to disable the store
+	 */
+	SymbolsStore(Path directory) {
+		this.directory = directory;
+		cleanup.setSystem(true);
+		cleanup.setPriority(Job.DECORATE);
+	}
+
+	/**
+	 * Loads the stored symbols of the given file.
+	 *
+	 * @param file
+	 * @return the stored symbols or an empty optional when nothing is stored or the stored symbols are outdated.
+	 */
+	Optional<List<Either<SymbolInformation, DocumentSymbol>>> load(IFile file) {
+		var uri = file.getLocationURI();
+		var entry = entry(uri);
+		if (entry == null || !Files.isRegularFile(entry)) {
+			return Optional.empty();
+		}
+		try (var channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+			ByteBuffer buffer = read(channel);
+			if (buffer.getInt() == MAGIC && buffer.getInt() == VERSION && uri.toString().equals(readString(buffer))) {
+				long modificationStamp = buffer.getLong();
+				byte[] contentHash = new byte[readLength(buffer)];
+				buffer.get(contentHash);
+				if (modificationStamp == file.getModificationStamp()
+						|| Arrays.equals(contentHash, contentHash(file))) {
+					int count = readLength(buffer);
+					List<Either<SymbolInformation, DocumentSymbol>> symbols = new ArrayList<>(count);
+					for (int i = 0; i < count; i++) {
+						symbols.add(Either.forRight(readSymbol(buffer)));
+					}
+					return Optional.of(symbols);
+				}
+			}
+		} catch (IOException | CoreException | BufferUnderflowException | IllegalArgumentException e) {
+			Platform.getLog(getClass()).warn("Discarding stored symbols of " + uri + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		// outdated or corrupted, delete after the channel has been closed:
+		delete(entry);
+		return Optional.empty();
+	}
+
+	/**
+	 * Stores the symbols of the given file. Only hierarchical {@link DocumentSymbol}s are stored.
+	 *
+	 * @param file
+	 * @param modificationStamp modification stamp of the file when the symbols have been requested
+	 * @param symbols the language server response
+	 */
+	void save(IFile file, long modificationStamp, List<Either<SymbolInformation, DocumentSymbol>> symbols) {
+		var entry = entry(file.getLocationURI());
+		if (entry == null || symbols == null || symbols.stream().anyMatch(Either::isLeft)
+				|| modificationStamp != file.getModificationStamp()) {
+			return;
+		}
+		try {
+			var contentHash = contentHash(file);
+			Files.createDirectories(directory);
+			var temporary = Files.createTempFile(directory, null, null);
+			try {
+				try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+					out.writeInt(MAGIC);
+					out.writeInt(VERSION);
+					writeString(out, file.getLocationURI().toString());
+					out.writeLong(modificationStamp);
+					out.writeInt(contentHash.length);
+					out.write(contentHash);
+					out.writeInt(symbols.size());
+					for (var symbol : symbols) {
+						writeSymbol(out, symbol.getRight());
+					}
+				}
+				move(temporary, entry);
+			} finally {
+				Files.deleteIfExists(temporary);
+			}
+		} catch (IOException | CoreException e) {
+			Platform.getLog(getClass()).error(e.getMessage(), e);
+		}
+		if (saves.getAndIncrement() % PRUNE_INTERVAL == 0) {
+			prune = true;
+			cleanup.schedule();
+		}
+	}
+
+	/**
+	 * Removes the stored symbols of the given file location in the background.
+	 *
+	 * @param uri
+	 */
+	void remove(URI uri) {
+		var entry = entry(uri);
+		if (entry != null) {
+			removals.add(entry);
+			cleanup.schedule();
+		}
+	}
+
+	private void cleanUp(IProgressMonitor monitor) {
+		Path entry;
+		while ((entry = removals.poll()) != null) {
+			delete(entry);
+		}
+		if (prune && !monitor.isCanceled()) {
+			prune = false;
+			prune();
+		}
+	}
+
+	/**
+	 * Deletes the entries which are older than the maximum age and the oldest entries beyond the maximum number.
+	 */
+	private void prune() {
+		record Stored(Path path, FileTime modified) {
+		}
+		List<Stored> entries = new ArrayList<>();
+		try (var paths = Files.newDirectoryStream(directory, "*" + SUFFIX)) { //$NON-NLS-1$
+			for (var path : paths) {
+				entries.add(new Stored(path, Files.getLastModifiedTime(path)));
+			}
+		} catch (IOException e) {
+			Platform.getLog(getClass()).warn(e.getMessage());
+			return;
+		}
+		// newest first:
+		entries.sort(Comparator.comparing(Stored::modified).reversed());
+		var oldest = FileTime.from(Instant.now().minus(MAX_AGE_DAYS, ChronoUnit.DAYS));
+		for (int i = 0; i < entries.size(); i++) {
+			if (i >= MAX_ENTRIES || entries.get(i).modified().compareTo(oldest) < 0) {
+				delete(entries.get(i).path());
+			}
+		}
+	}
+
+	/**
+	 * @return the content of the given entry, mapped unless the mapping would lock the file
+	 */
+	private static ByteBuffer read(FileChannel channel) throws IOException {
+		if (MAPPED) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		var buffer = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+		while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+			// reads until the buffer is full or the end of the file
+		}
+		return buffer.flip();
+	}
+
+	private Path entry(URI uri) {
+		if (directory == null || uri == null) {
+			return null;
+		}
+		return directory.resolve(HexFormat.of().formatHex(digest(uri.toString().getBytes(StandardCharsets.UTF_8)))
+				.substring(0, 40) + SUFFIX);
+	}
+
+	private static void move(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private void delete(Path entry) {
+		try {
+			Files.deleteIfExists(entry);
+		} catch (IOException e) {
+			// e.g. if another process has opened the entry, it will be replaced or deleted later:
+			Platform.getLog(getClass()).warn(e.getMessage());
+		}
+	}
+
+	private static byte[] contentHash(IFile file) throws CoreException, IOException {
+		var digest = messageDigest();
+		try (InputStream in = file.getContents(true)) {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return digest.digest();
+	}
+
+	private static byte[] digest(byte[] data) {
+		return messageDigest().digest(data);
+	}
+
+	private static MessageDigest messageDigest() {
+		try {
+			return MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform has to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void writeSymbol(DataOutputStream out, DocumentSymbol symbol) throws IOException {
+		writeString(out, symbol.getName());
+		writeString(out, symbol.getDetail());
+		out.writeInt(symbol.getKind() != null ? symbol.getKind().getValue() : SymbolKind.Null.getValue());
+		writeRange(out, symbol.getRange());
+		writeRange(out, symbol.getSelectionRange());
+		var children = symbol.getChildren();
+		if (children == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(children.size());
+			for (var child : children) {
+				writeSymbol(out, child);
+			}
+		}
+	}
+
+	private static DocumentSymbol readSymbol(ByteBuffer buffer) {
+		var symbol = new DocumentSymbol();
+		symbol.setName(readString(buffer));
+		symbol.setDetail(readString(buffer));
+		symbol.setKind(SymbolKind.forValue(buffer.getInt()));
+		symbol.setRange(readRange(buffer));
+		symbol.setSelectionRange(readRange(buffer));
+		int count = buffer.getInt();
+		if (count >= 0) {
+			checkLength(buffer, count);
+			List<DocumentSymbol> children = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				children.add(readSymbol(buffer));
+			}
+			symbol.setChildren(children);
+		}
+		return symbol;
+	}
+
+	private static void writeRange(DataOutputStream out, Range range) throws IOException {
+		if (range == null) {
+			range = new Range(new Position(), new Position());
+		}
+		out.writeInt(range.getStart().getLine());
+		out.writeInt(range.getStart().getCharacter());
+		out.writeInt(range.getEnd().getLine());
+		out.writeInt(range.getEnd().getCharacter());
+	}
+
+	private static Range readRange(ByteBuffer buffer) {
+		var start = new Position(buffer.getInt(), buffer.getInt());
+		var end = new Position(buffer.getInt(), buffer.getInt());
+		return new Range(start, end);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		checkLength(buffer, length);
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int readLength(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0) {
+			throw new IllegalArgumentException("Negative length " + length); //$NON-NLS-1$
+		}
+		return checkLength(buffer, length);
+	}
+
+	/**
+	 * Each element takes at least one byte, protects against huge allocations for corrupted entries.
+	 */
+	private static int checkLength(ByteBuffer buffer, int length) {
+		if (length > buffer.remaining()) {
+			throw new IllegalArgumentException("Invalid length " + length); //$NON-NLS-1$
+		}
+		return length;
+	}
+
+}
@@ -16,6 +16,7 @@ package org.eclipse.cdt.lsp.plugin;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.eclipse.cdt.lsp.internal.editor.CodanMarkerCleaner;
 import org.eclipse.cdt.lsp.internal.server.CLanguageServerRegistry;
 import org.eclipse.cdt.lsp.server.ICLanguageServerProvider;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
@@ -58,6 +59,7 @@ public class LspPlugin extends AbstractUIPlugin {
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		CodanMarkerCleaner.getDefault().stop();
 		plugin = null;
 		super.stop(context);
 	}
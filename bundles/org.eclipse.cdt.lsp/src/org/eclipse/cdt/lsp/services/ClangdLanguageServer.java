@@ -13,11 +13,15 @@
  *******************************************************************************/
 package org.eclipse.cdt.lsp.services;
 
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.cdt.lsp.services.ast.AstNode;
 import org.eclipse.cdt.lsp.services.ast.AstParams;
+import org.eclipse.cdt.lsp.services.configuration.CompileCommand;
+import org.eclipse.cdt.lsp.services.configuration.ConfigurationSettings;
 import org.eclipse.cdt.lsp.services.symbolinfo.SymbolDetails;
+import org.eclipse.lsp4j.DidChangeConfigurationParams;
 import org.eclipse.lsp4j.TextDocumentIdentifier;
 import org.eclipse.lsp4j.TextDocumentPositionParams;
 import org.eclipse.lsp4j.jsonrpc.services.JsonRequest;
@@ -74,4 +78,21 @@ public interface ClangdLanguageServer extends LanguageServer {
 	 */
 	@JsonRequest(value = "textDocument/symbolInfo")
 	CompletableFuture<SymbolDetails[]> getSymbolInfo(TextDocumentPositionParams positionParameters);
+
+	/**
+	 * Sends the <em>workspace/didChangeConfiguration</em> notification with compile commands to clangd.
+	 * The commands replace the commands of the compilation database for the given files and clangd rebuilds
+	 * the affected opened files in place, without a restart.
+	 * The notification is declared by the {@link org.eclipse.lsp4j.services.WorkspaceService WorkspaceService},
+	 * this method only adds the clangd specific settings.
+	 *
+	 * @param server   clangd
+	 * @param commands compile commands keyed by the absolute path of the file
+	 *
+	 * @see https://clangd.llvm.org/extensions#compilation-commands
+	 */
+	static void changeCompilationDatabase(LanguageServer server, Map<String, CompileCommand> commands) {
+		server.getWorkspaceService()
+				.didChangeConfiguration(new DidChangeConfigurationParams(new ConfigurationSettings(commands)));
+	}
 }
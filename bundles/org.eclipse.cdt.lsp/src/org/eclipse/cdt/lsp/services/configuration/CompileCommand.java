@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+package org.eclipse.cdt.lsp.services.configuration;
+
+import java.util.List;
+
+import org.eclipse.lsp4j.jsonrpc.util.Preconditions;
+import org.eclipse.lsp4j.jsonrpc.util.ToStringBuilder;
+import org.eclipse.lsp4j.jsonrpc.validation.NonNull;
+
+/**
+ * Compile command of a single file, pushed to clangd with {@link ConfigurationSettings}.
+ *
+ * @see https://clangd.llvm.org/extensions#compilation-commands
+ */
+public class CompileCommand {
+
+	@NonNull
+	private String workingDirectory;
+
+	@NonNull
+	private List<String> compilationCommand;
+
+	public CompileCommand() {
+	}
+
+	public CompileCommand(@NonNull final String workingDirectory, @NonNull final List<String> compilationCommand) {
+		this.workingDirectory = Preconditions.<String>checkNotNull(workingDirectory, "workingDirectory"); //$NON-NLS-1$
+		this.compilationCommand = Preconditions.<List<String>>checkNotNull(compilationCommand, "compilationCommand"); //$NON-NLS-1$
+	}
+
+	@NonNull
+	public String getWorkingDirectory() {
+		return workingDirectory;
+	}
+
+	public void setWorkingDirectory(@NonNull final String workingDirectory) {
+		this.workingDirectory = Preconditions.<String>checkNotNull(workingDirectory, "workingDirectory"); //$NON-NLS-1$
+	}
+
+	@NonNull
+	public List<String> getCompilationCommand() {
+		return compilationCommand;
+	}
+
+	public void setCompilationCommand(@NonNull final List<String> compilationCommand) {
+		this.compilationCommand = Preconditions.<List<String>>checkNotNull(compilationCommand, "compilationCommand"); //$NON-NLS-1$
+	}
+
+	@Override
+	public String toString() {
+		ToStringBuilder b = new ToStringBuilder(this);
+		b.add("workingDirectory", workingDirectory); //$NON-NLS-1$
+		b.add("compilationCommand", compilationCommand); //$NON-NLS-1$
+		return b.toString();
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		CompileCommand other = (CompileCommand) obj;
+		if (this.workingDirectory == null) {
+			if (other.workingDirectory != null)
+				return false;
+		} else if (!this.workingDirectory.equals(other.workingDirectory))
+			return false;
+		if (this.compilationCommand == null) {
+			if (other.compilationCommand != null)
+				return false;
+		} else if (!this.compilationCommand.equals(other.compilationCommand))
+			return false;
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((this.workingDirectory == null) ? 0 : this.workingDirectory.hashCode());
+		return prime * result + ((this.compilationCommand == null) ? 0 : this.compilationCommand.hashCode());
+	}
+}
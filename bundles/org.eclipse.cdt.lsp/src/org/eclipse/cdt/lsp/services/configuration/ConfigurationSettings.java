@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+package org.eclipse.cdt.lsp.services.configuration;
+
+import java.util.Map;
+
+import org.eclipse.cdt.lsp.services.ClangdLanguageServer;
+import org.eclipse.lsp4j.jsonrpc.util.Preconditions;
+import org.eclipse.lsp4j.jsonrpc.util.ToStringBuilder;
+import org.eclipse.lsp4j.jsonrpc.validation.NonNull;
+import org.eclipse.lsp4j.services.LanguageServer;
+
+/**
+ * Settings of the <em>workspace/didChangeConfiguration</em> notification understood by clangd.
+ * The compile commands replace the commands of the compilation database for the given files,
+ * clangd rebuilds the affected opened files.
+ *
+ * @see {@link ClangdLanguageServer#changeCompilationDatabase(LanguageServer, Map)}
+ * @see https://clangd.llvm.org/extensions#compilation-commands
+ */
+public class ConfigurationSettings {
+
+	@NonNull
+	private Map<String, CompileCommand> compilationDatabaseChanges;
+
+	public ConfigurationSettings() {
+	}
+
+	public ConfigurationSettings(@NonNull final Map<String, CompileCommand> compilationDatabaseChanges) {
+		this.compilationDatabaseChanges = Preconditions.<Map<String, CompileCommand>>checkNotNull(
+				compilationDatabaseChanges, "compilationDatabaseChanges"); //$NON-NLS-1$
+	}
+
+	/**
+	 * @return compile commands keyed by the absolute path of the file
+	 */
+	@NonNull
+	public Map<String, CompileCommand> getCompilationDatabaseChanges() {
+		return compilationDatabaseChanges;
+	}
+
+	public void setCompilationDatabaseChanges(@NonNull final Map<String, CompileCommand> compilationDatabaseChanges) {
+		this.compilationDatabaseChanges = Preconditions.<Map<String, CompileCommand>>checkNotNull(
+				compilationDatabaseChanges, "compilationDatabaseChanges"); //$NON-NLS-1$
+	}
+
+	@Override
+	public String toString() {
+		ToStringBuilder b = new ToStringBuilder(this);
+		b.add("compilationDatabaseChanges", compilationDatabaseChanges); //$NON-NLS-1$
+		return b.toString();
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ConfigurationSettings other = (ConfigurationSettings) obj;
+		if (this.compilationDatabaseChanges == null) {
+			return other.compilationDatabaseChanges == null;
+		}
+		return this.compilationDatabaseChanges.equals(other.compilationDatabaseChanges);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 + ((this.compilationDatabaseChanges == null) ? 0 : this.compilationDatabaseChanges.hashCode());
+	}
+}
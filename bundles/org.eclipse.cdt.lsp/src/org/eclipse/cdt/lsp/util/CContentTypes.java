@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+package org.eclipse.cdt.lsp.util;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.content.IContentType;
+import org.eclipse.core.runtime.content.IContentTypeManager;
+import org.eclipse.core.runtime.content.IContentTypeManager.IContentTypeChangeListener;
+
+/**
+ * Classifies file names as C/C++ files without querying the content type manager for each file.
+ * The classification is cached per file extension and discarded whenever a content type changes,
+ * e.g. when the user associates another file extension with a C/C++ content type.
+ * File names which are associated with a content type by their full name are not cached.
+ */
+public final class CContentTypes {
+	private static final CContentTypes INSTANCE = new CContentTypes();
+	// an empty extension is a valid key, e.g. for "Makefile":
+	private static final String NO_EXTENSION = ""; //$NON-NLS-1$
+
+	private record Snapshot(Set<String> ids, Set<String> fileNames, Map<String, Boolean> extensions) {
+	}
+
+	private volatile Snapshot snapshot;
+	private volatile boolean listening;
+	private final AtomicLong generation = new AtomicLong();
+
+	private final IContentTypeChangeListener listener = event -> {
+		generation.incrementAndGet();
+		snapshot = null;
+	};
+
+	private CContentTypes() {
+	}
+
+	/**
+	 * @param id content type id
+	 * @return {@code true} if the given id is a C/C++ source or header content type
+	 */
+	public static boolean isCContentType(String id) {
+		return id != null && matches(id);
+	}
+
+	/**
+	 * @param uri
+	 * @return {@code true} if the file name of the given URI is associated with a C/C++ content type
+	 */
+	public static boolean isCFile(URI uri) {
+		if (uri == null || uri.getPath() == null) {
+			return false;
+		}
+		var path = uri.getPath();
+		return isCFileName(path.substring(path.lastIndexOf('/') + 1));
+	}
+
+	/**
+	 * @param fileName file name without path
+	 * @return {@code true} if the given file name is associated with a C/C++ content type
+	 */
+	public static boolean isCFileName(String fileName) {
+		if (fileName == null || fileName.isEmpty()) {
+			return false;
+		}
+		var current = INSTANCE.get();
+		if (current.fileNames().contains(fileName)) {
+			return lookup(current, fileName);
+		}
+		int dot = fileName.lastIndexOf('.');
+		var extension = dot >= 0 ? fileName.substring(dot + 1) : NO_EXTENSION;
+		return current.extensions().computeIfAbsent(extension, e -> lookup(current, fileName));
+	}
+
+	private static boolean matches(String id) {
+		return id.startsWith("org.eclipse.cdt.core.c") && (id.endsWith("Source") || id.endsWith("Header")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	private static boolean lookup(Snapshot current, String fileName) {
+		var contentType = manager().findContentTypeFor(fileName);
+		return contentType != null && current.ids().contains(contentType.getId());
+	}
+
+	private Snapshot get() {
+		var current = snapshot;
+		if (current == null) {
+			listen();
+			long started = generation.get();
+			var types = manager().getAllContentTypes();
+			var ids = Arrays.stream(types).map(IContentType::getId).filter(CContentTypes::matches)
+					.collect(Collectors.toUnmodifiableSet());
+			Set<String> fileNames = new HashSet<>();
+			for (var type : types) {
+				fileNames.addAll(Arrays.asList(type.getFileSpecs(IContentType.FILE_NAME_SPEC)));
+			}
+			current = new Snapshot(ids, Set.copyOf(fileNames), new ConcurrentHashMap<>());
+			if (generation.get() == started) {
+				// not changed meanwhile:
+				snapshot = current;
+			}
+		}
+		return current;
+	}
+
+	private void listen() {
+		if (!listening) {
+			synchronized (this) {
+				if (!listening) {
+					manager().addContentTypeChangeListener(listener);
+					listening = true;
+				}
+			}
+		}
+	}
+
+	private static IContentTypeManager manager() {
+		return Platform.getContentTypeManager();
+	}
+
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+package org.eclipse.cdt.lsp.util;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.lsp4e.LanguageServerWrapper;
+import org.eclipse.lsp4e.LanguageServiceAccessor;
+
+/**
+ * Resolves the wrappers of the C/C++ language server without walking all language servers known to LSP4E on each call.
+ * The resolution is cached and invalidated whenever a C/C++ language server is started or stopped, which includes
+ * restarts. Cached wrappers which are not active anymore are resolved again.
+ */
+public final class LanguageServerWrappers {
+	// the shared server and the servers per project:
+	private static final Set<String> SERVER_IDS = Set.of("org.eclipse.cdt.lsp.server", //$NON-NLS-1$
+			"org.eclipse.cdt.lsp.server.project"); //$NON-NLS-1$
+	private static volatile List<LanguageServerWrapper> wrappers;
+	private static final AtomicLong generation = new AtomicLong();
+	private static final Map<IProject, LanguageServerWrapper> projects = new ConcurrentHashMap<>();
+
+	private LanguageServerWrappers() {
+	}
+
+	/**
+	 * @return the active C/C++ language server wrappers
+	 */
+	public static Stream<LanguageServerWrapper> getActive() {
+		return getAll().stream().filter(LanguageServerWrapper::isActive);
+	}
+
+	/**
+	 * Returns the active C/C++ language server wrapper which operates on the given project.
+	 *
+	 * @param project
+	 * @return the wrapper or an empty optional, if no language server has been started for the project yet
+	 */
+	public static Optional<LanguageServerWrapper> forProject(IProject project) {
+		if (project == null) {
+			return Optional.empty();
+		}
+		var wrapper = projects.get(project);
+		if (wrapper != null && wrapper.isActive()) {
+			return Optional.of(wrapper);
+		}
+		var resolved = getActive().filter(w -> w.canOperate(project)).findFirst();
+		resolved.ifPresentOrElse(w -> projects.put(project, w), () -> projects.remove(project));
+		return resolved;
+	}
+
+	/**
+	 * Returns the active C/C++ language server wrapper of the given project, which has the given document opened.
+	 * Requests for the document can be sent directly to this wrapper.
+	 *
+	 * @param project
+	 * @param uri of the document
+	 * @return the wrapper or an empty optional
+	 */
+	public static Optional<LanguageServerWrapper> forDocument(IProject project, URI uri) {
+		return forProject(project).filter(w -> uri != null && w.isConnectedTo(uri));
+	}
+
+	/**
+	 * Discards the cached resolution. Has to be called when a C/C++ language server has been started or stopped.
+	 */
+	public static void invalidate() {
+		generation.incrementAndGet();
+		wrappers = null;
+		projects.clear();
+	}
+
+	private static List<LanguageServerWrapper> getAll() {
+		var all = wrappers;
+		if (all == null) {
+			long current = generation.get();
+			// include wrappers which are still starting, they are filtered by their state on access:
+			all = LanguageServiceAccessor.getStartedWrappers(null, false).stream()
+					.filter(w -> SERVER_IDS.contains(w.serverDefinition.id)).toList();
+			if (generation.get() == current) {
+				// not invalidated meanwhile:
+				wrappers = all;
+			}
+		}
+		return all;
+	}
+
+}
@@ -13,25 +13,21 @@ package org.eclipse.cdt.lsp.util;
 
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
+import org.eclipse.cdt.lsp.ResourceLocations;
+import org.eclipse.cdt.lsp.internal.editor.OpenEditorRegistry;
 import org.eclipse.cdt.lsp.plugin.LspPlugin;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IWorkspace;
-import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.ServiceCaller;
 import org.eclipse.lsp4e.LanguageServerWrapper;
-import org.eclipse.lsp4e.LanguageServiceAccessor;
 import org.eclipse.ui.IEditorInput;
 import org.eclipse.ui.IEditorReference;
-import org.eclipse.ui.IURIEditorInput;
-import org.eclipse.ui.PartInitException;
 import org.eclipse.ui.PlatformUI;
-import org.eclipse.ui.part.FileEditorInput;
 
 public class LspUtils {
 
@@ -42,39 +38,20 @@ public class LspUtils {
 	 * @return {@code true} if C/C++ content type
 	 */
 	public static boolean isCContentType(String id) {
-		return (id.startsWith("org.eclipse.cdt.core.c") && (id.endsWith("Source") || id.endsWith("Header"))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		return CContentTypes.isCContentType(id);
 	}
 
 	public static boolean isFileOpenedInLspEditor(URI uri) {
 		if (uri == null) {
 			return false;
 		}
-		var editors = getEditors();
+		var editors = OpenEditorRegistry.getDefault();
 		if (!editors.isEmpty()) {
-			for (IEditorReference editor : editors) {
-				IEditorInput editorInput = null;
-				URI editorUnputURI = null;
-				try {
-					editorInput = editor.getEditorInput();
-				} catch (PartInitException e) {
-					Platform.getLog(LspUtils.class).error(e.getMessage(), e);
-					continue;
-				}
-
-				if (editorInput instanceof IURIEditorInput) {
-					editorUnputURI = ((IURIEditorInput) editorInput).getURI();
-				} else if (editorInput instanceof FileEditorInput) {
-					editorUnputURI = ((FileEditorInput) editorInput).getFile().getLocationURI();
-				}
-
-				if (uri.equals(editorUnputURI)) {
-					// should return false when an external header file with same URI is opened in a LSP editor
-					// and non LSP editor and tab switching from a non LSP editor to the tab with the file in the non LSP editor:
-					return LspPlugin.LSP_C_EDITOR_ID.equals(editor.getId()) && isLspEditorActive();
-				}
-			}
-			// the file has not been opened yet -> goto definition/declaration case
-			return isLspEditorActive();
+			// should return false when an external header file with same URI is opened in a LSP editor
+			// and non LSP editor and tab switching from a non LSP editor to the tab with the file in the non LSP editor:
+			return editors.getEditorId(uri).map(id -> LspPlugin.LSP_C_EDITOR_ID.equals(id) && isLspEditorActive())
+					// the file has not been opened yet -> goto definition/declaration case
+					.orElseGet(LspUtils::isLspEditorActive);
 		}
 		return false;
 	}
@@ -83,22 +60,11 @@ public class LspUtils {
 		if (editorInput == null) {
 			return false;
 		}
-		var editors = getEditors();
+		var editors = OpenEditorRegistry.getDefault();
 		if (!editors.isEmpty()) {
-			for (IEditorReference editor : editors) {
-				IEditorInput editorInputFromEditor = null;
-				try {
-					editorInputFromEditor = editor.getEditorInput();
-				} catch (PartInitException e) {
-					Platform.getLog(LspUtils.class).error(e.getMessage(), e);
-					continue;
-				}
-				if (editorInput.equals(editorInputFromEditor)) {
-					return LspPlugin.LSP_C_EDITOR_ID.equals(editor.getId());
-				}
-			}
-			// the file has not been opened yet:
-			return isLspEditorActive();
+			return editors.getEditorId(editorInput).map(LspPlugin.LSP_C_EDITOR_ID::equals)
+					// the file has not been opened yet:
+					.orElseGet(LspUtils::isLspEditorActive);
 		}
 		return false;
 	}
@@ -134,13 +100,12 @@ public class LspUtils {
 	public static Optional<IFile> getFile(URI uri) {
 		List<IFile> found = new ArrayList<>();
 		ServiceCaller.callOnce(LspUtils.class, IWorkspace.class, //
-				w -> Arrays.stream(w.getRoot().findFilesForLocationURI(uri)).forEach(found::add));
+				w -> ResourceLocations.of(w).findFile(uri).ifPresent(found::add));
 		return found.stream().findFirst();
 	}
 
 	public static Stream<LanguageServerWrapper> getLanguageServers() {
-		return LanguageServiceAccessor.getStartedWrappers(null, true).stream()
-				.filter(w -> "org.eclipse.cdt.lsp.server".equals(w.serverDefinition.id)); //$NON-NLS-1$
+		return LanguageServerWrappers.getActive();
 	}
 
 }
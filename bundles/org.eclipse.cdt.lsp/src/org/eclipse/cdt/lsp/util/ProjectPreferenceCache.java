@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+package org.eclipse.cdt.lsp.util;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ProjectScope;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.preferences.DefaultScope;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.IPreferenceChangeListener;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+
+/**
+ * Memoizes a value computed from the preferences of a project, e.g. whether the language server is enabled
+ * for the project. A value is discarded when
+ * <ul>
+ * <li>a preference of the given qualifier changes in the project, instance or default scope,</li>
+ * <li>the project is opened, closed, deleted or its description (e.g. its natures) changes.</li>
+ * </ul>
+ * The listeners are registered on first access. All methods are thread safe.
+ *
+ * @param <V> value type
+ */
+public final class ProjectPreferenceCache<V> {
+	// key for values computed without a project:
+	private static final Object NO_PROJECT = new Object();
+	private final String qualifier;
+	private final Function<IProject, V> compute;
+	private final Map<Object, V> values = new ConcurrentHashMap<>();
+	private final Map<IProject, IEclipsePreferences> projectNodes = new ConcurrentHashMap<>();
+	private final AtomicLong generation = new AtomicLong();
+	private volatile boolean listening;
+
+	private final IPreferenceChangeListener preferenceListener = event -> clear();
+
+	private final IResourceChangeListener resourceListener = event -> {
+		if (event.getType() != IResourceChangeEvent.POST_CHANGE) {
+			// pre close or pre delete:
+			if (event.getResource() instanceof IProject project) {
+				invalidate(project);
+			}
+			return;
+		}
+		var delta = event.getDelta();
+		if (delta == null) {
+			return;
+		}
+		for (var child : delta.getAffectedChildren()) {
+			if (child.getResource().getType() == IResource.PROJECT && (child.getKind() != IResourceDelta.CHANGED
+					|| (child.getFlags() & (IResourceDelta.OPEN | IResourceDelta.DESCRIPTION)) != 0)) {
+				invalidate((IProject) child.getResource());
+			}
+		}
+	};
+
+	/**
+	 * @param qualifier of the preferences the values depend on
+	 * @param compute computes the value of a project, the project may be <code>null</code>.
+	 * <code>null</code> values are not cached, e.g. when a required service is not available yet.
+	 */
+	public ProjectPreferenceCache(String qualifier, Function<IProject, V> compute) {
+		this.qualifier = Objects.requireNonNull(qualifier);
+		this.compute = Objects.requireNonNull(compute);
+	}
+
+	/**
+	 * Returns the cached value of the given project or computes it.
+	 *
+	 * @param project may be <code>null</code>
+	 * @return the value or <code>null</code> if it could not be computed
+	 */
+	public V get(IProject project) {
+		startListening();
+		Object key = project != null ? project : NO_PROJECT;
+		var value = values.get(key);
+		if (value != null) {
+			return value;
+		}
+		if (project != null) {
+			listenTo(project);
+		}
+		long current = generation.get();
+		value = compute.apply(project);
+		// do not cache a value which has been computed from outdated preferences:
+		if (value != null && generation.get() == current) {
+			values.put(key, value);
+		}
+		return value;
+	}
+
+	/**
+	 * Discards all cached values.
+	 */
+	public void clear() {
+		generation.incrementAndGet();
+		values.clear();
+	}
+
+	/**
+	 * Discards the cached value of the given project.
+	 *
+	 * @param project
+	 */
+	public void invalidate(IProject project) {
+		generation.incrementAndGet();
+		values.remove(project);
+		var node = projectNodes.remove(project);
+		if (node != null) {
+			try {
+				node.removePreferenceChangeListener(preferenceListener);
+			} catch (IllegalStateException e) {
+				// node has been removed together with the project
+			}
+		}
+	}
+
+	/**
+	 * Stops listening and discards all cached values.
+	 */
+	public synchronized void dispose() {
+		if (listening) {
+			listening = false;
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(resourceListener);
+			InstanceScope.INSTANCE.getNode(qualifier).removePreferenceChangeListener(preferenceListener);
+			DefaultScope.INSTANCE.getNode(qualifier).removePreferenceChangeListener(preferenceListener);
+			projectNodes.keySet().forEach(this::invalidate);
+		}
+		clear();
+	}
+
+	private void startListening() {
+		if (listening) {
+			return;
+		}
+		synchronized (this) {
+			if (!listening) {
+				InstanceScope.INSTANCE.getNode(qualifier).addPreferenceChangeListener(preferenceListener);
+				DefaultScope.INSTANCE.getNode(qualifier).addPreferenceChangeListener(preferenceListener);
+				ResourcesPlugin.getWorkspace().addResourceChangeListener(resourceListener, IResourceChangeEvent.POST_CHANGE
+						| IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+				listening = true;
+			}
+		}
+	}
+
+	private void listenTo(IProject project) {
+		if (!project.isAccessible()) {
+			return;
+		}
+		projectNodes.computeIfAbsent(project, p -> {
+			var node = new ProjectScope(p).getNode(qualifier);
+			node.addPreferenceChangeListener(preferenceListener);
+			return node;
+		});
+	}
+
+}
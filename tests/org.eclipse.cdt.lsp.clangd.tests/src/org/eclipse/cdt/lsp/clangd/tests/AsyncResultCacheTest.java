@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.clangd.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.cdt.lsp.clangd.internal.config.AsyncResultCache;
+import org.junit.jupiter.api.Test;
+
+final class AsyncResultCacheTest {
+	private final AsyncResultCache<String, String> cache = new AsyncResultCache<>();
+	private final AtomicInteger computations = new AtomicInteger();
+
+	@Test
+	void testRunningComputationIsShared() {
+		var running = new CompletableFuture<Optional<String>>();
+		var first = cache.get("a", () -> computed(running));
+		var second = cache.get("a", () -> computed(new CompletableFuture<>()));
+		assertSame(first, second);
+		assertEquals(1, computations.get());
+		running.complete(Optional.of("flags"));
+		assertSame(first, cache.get("a", () -> computed(new CompletableFuture<>())));
+		assertEquals(1, computations.get());
+	}
+
+	@Test
+	void testEmptyResultIsNotCached() {
+		var running = new CompletableFuture<Optional<String>>();
+		var first = cache.get("a", () -> computed(running));
+		running.complete(Optional.empty());
+		assertNotSame(first, cache.get("a", () -> computed(new CompletableFuture<>())));
+		assertEquals(2, computations.get());
+	}
+
+	@Test
+	void testFailedResultIsNotCached() {
+		cache.get("a", () -> computed(CompletableFuture.failedFuture(new IllegalStateException())));
+		cache.get("a", () -> computed(CompletableFuture.completedFuture(Optional.of("flags"))));
+		cache.get("a", () -> computed(new CompletableFuture<>()));
+		assertEquals(2, computations.get());
+	}
+
+	@Test
+	void testInvalidate() {
+		cache.get("a", () -> computed(CompletableFuture.completedFuture(Optional.of("flags"))));
+		cache.get("b", () -> computed(CompletableFuture.completedFuture(Optional.of("flags"))));
+		cache.invalidate("a"::equals);
+		cache.get("a", () -> computed(CompletableFuture.completedFuture(Optional.of("changed"))));
+		cache.get("b", () -> computed(new CompletableFuture<>()));
+		assertEquals(3, computations.get());
+		assertEquals(Optional.of("changed"), cache.get("a", () -> computed(new CompletableFuture<>())).join());
+	}
+
+	private CompletableFuture<Optional<String>> computed(CompletableFuture<Optional<String>> result) {
+		computations.incrementAndGet();
+		return result;
+	}
+
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.clangd.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.cdt.core.settings.model.CProjectDescriptionEvent;
+import org.eclipse.cdt.lsp.clangd.internal.config.CProjectChangeMonitor;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.jobs.Job;
+import org.junit.jupiter.api.Test;
+
+final class CProjectChangeMonitorTest {
+	private final IProject a = project("a");
+	private final IProject b = project("b");
+	private final List<CProjectDescriptionEvent> handled = new CopyOnWriteArrayList<>();
+	private final CountDownLatch started = new CountDownLatch(1);
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private final CProjectChangeMonitor monitor = new CProjectChangeMonitor(event -> {
+		if (event.getProject() == a && handled.stream().noneMatch(e -> e.getProject() == a)) {
+			// blocks the first event of a:
+			started.countDown();
+			await(release);
+		}
+		handled.add(event);
+	});
+
+	@Test
+	void testEventsAreCoalescedPerProject() throws InterruptedException {
+		var a1 = event(a);
+		var a2 = event(a);
+		var a3 = event(a);
+		var b1 = event(b);
+		monitor.handleEvent(a1);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		// while the first event of a is handled, the later ones are merged:
+		monitor.handleEvent(a2);
+		monitor.handleEvent(a3);
+		// the other project is not blocked by a:
+		monitor.handleEvent(b1);
+		waitUntil(() -> handled.contains(b1));
+
+		release.countDown();
+		Job.getJobManager().join(CProjectChangeMonitor.FAMILY, null);
+		assertEquals(List.of(b1, a1, a3), handled);
+		assertEquals(new CProjectChangeMonitor.Metrics(4, 1, 3, monitor.metrics().maxLatency()), monitor.metrics());
+	}
+
+	private static IProject project(String name) {
+		var project = mock(IProject.class);
+		when(project.getName()).thenReturn(name);
+		when(project.exists()).thenReturn(true);
+		return project;
+	}
+
+	private static CProjectDescriptionEvent event(IProject project) {
+		var event = mock(CProjectDescriptionEvent.class);
+		when(event.getProject()).thenReturn(project);
+		return event;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(condition.getAsBoolean());
+	}
+
+}
@@ -16,6 +16,7 @@ package org.eclipse.cdt.lsp.clangd.tests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -26,6 +27,8 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.nio.file.Files;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.Arrays;
 
 import org.eclipse.cdt.core.settings.model.CProjectDescriptionEvent;
@@ -54,7 +57,8 @@ final class ClangdConfigurationFileManagerTest {
 	private static final String RELATIVE_DIR_PATH_BUILD_DEBUG = "build" + File.separator + "debug";
 	private static final String EXPANDED_CDB_SETTING = "CompileFlags: {Add: -ferror-limit=500, CompilationDatabase: %s, Compiler: g++}\nDiagnostics:\n  ClangTidy: {Add: modernize*, Remove: modernize-use-trailing-return-type}\n";
 	private static final String DEFAULT_CDB_SETTING = "CompileFlags: {CompilationDatabase: %s}";
-	private static final String MODIFIED_DEFAULT_CDB_SETTING = DEFAULT_CDB_SETTING + "\n";
+	private static final String COMMENTED_CDB_SETTING = "# clangd configuration\nCompileFlags:\n  # generated by the build\n  CompilationDatabase: %s # active configuration\n  Add: [-Wall]\n";
+	private static final String COMMENTED_SETTING_WITHOUT_CDB = "# clangd configuration\nCompileFlags:\n  Add: [-Wall]%s\n";
 	private static final String INVALID_YAML_SYNTAX_CONTAINS_TAB = "CompileFlags:\n\tCompilationDatabase: %s";
 	private static final String INVALID_YAML_SYNTAX_MISSING_BRACE = "CompileFlags: {CompilationDatabase: Release\r\n";
 	private final ClangdCProjectDescriptionListener clangdConfigurationManager = PlatformUI.getWorkbench()
@@ -192,9 +196,8 @@ final class ClangdConfigurationFileManagerTest {
 		var configFile = new File(projectDir, ClangdConfigurationFileManager.CLANGD_CONFIG_FILE_NAME);
 		var refFileDefault = createFile(TEMP_DIR, ".clangdDefault", DEFAULT_CDB_SETTING,
 				RELATIVE_DIR_PATH_BUILD_DEFAULT);
-		// Use MODIFIED_DEFAULT_CDB_SETTING here, because the org.yaml.snakeyaml.Yaml.dump appends a '\n' at the last line:
-		var refFileDebug = createFile(TEMP_DIR, ".clangdDebug", MODIFIED_DEFAULT_CDB_SETTING,
-				RELATIVE_DIR_PATH_BUILD_DEBUG);
+		// Only the path is replaced, the rest of the file is kept as it is:
+		var refFileDebug = createFile(TEMP_DIR, ".clangdDebug", DEFAULT_CDB_SETTING, RELATIVE_DIR_PATH_BUILD_DEBUG);
 		// The current working directory of the builder in the project is set to RELATIVE_DIR_PATH_BUILD_DEFAULT:
 		cwdBuilder = new Path(project.getLocation().append(RELATIVE_DIR_PATH_BUILD_DEFAULT).toPortableString());
 		when(setting.getBuilderCWD()).thenReturn(cwdBuilder);
@@ -245,6 +248,97 @@ final class ClangdConfigurationFileManagerTest {
 		refFile.delete();
 	}
 
+	/**
+	 * Test whether comments and formatting of an existing .clangd file are kept when the path is changed
+	 *
+	 * @throws IOException
+	 * @throws CoreException
+	 */
+	@Test
+	void testCommentsArePreserved() throws IOException, CoreException {
+		// GIVEN an existing .clangd configuration file with comments pointing to "build/default":
+		var configFile = createConfigFile(COMMENTED_CDB_SETTING, RELATIVE_DIR_PATH_BUILD_DEFAULT);
+		// WHEN the path is set to "build/debug":
+		((ClangdConfigurationFileManager) clangdConfigurationManager).setCompilationDatabase(project,
+				RELATIVE_DIR_PATH_BUILD_DEBUG);
+		// THEN only the path has been replaced:
+		try (var inputStream = configFile.getContents()) {
+			assertEquals(String.format(COMMENTED_CDB_SETTING, RELATIVE_DIR_PATH_BUILD_DEBUG),
+					new String(inputStream.readAllBytes()));
+		}
+	}
+
+	/**
+	 * Test whether a missing CompilationDatabase entry is inserted into an existing CompileFlags block
+	 *
+	 * @throws IOException
+	 * @throws CoreException
+	 */
+	@Test
+	void testInsertIntoBlockMapping() throws IOException, CoreException {
+		// GIVEN an existing .clangd configuration file without CompilationDatabase entry:
+		var configFile = createConfigFile(COMMENTED_SETTING_WITHOUT_CDB, "");
+		// WHEN the path is set to "build/debug":
+		((ClangdConfigurationFileManager) clangdConfigurationManager).setCompilationDatabase(project,
+				RELATIVE_DIR_PATH_BUILD_DEBUG);
+		// THEN the entry has been added with the indentation of the block:
+		try (var inputStream = configFile.getContents()) {
+			assertEquals("# clangd configuration\nCompileFlags:\n  CompilationDatabase: "
+					+ RELATIVE_DIR_PATH_BUILD_DEBUG + "\n  Add: [-Wall]\n", new String(inputStream.readAllBytes()));
+		}
+	}
+
+	/**
+	 * Test whether the .clangd file is not written again when the path has not been changed
+	 *
+	 * @throws IOException
+	 * @throws CoreException
+	 */
+	@Test
+	void testUnchangedPathIsNotWritten() throws IOException, CoreException {
+		var manager = (ClangdConfigurationFileManager) clangdConfigurationManager;
+		var configFile = project.getFile(ClangdConfigurationFileManager.CLANGD_CONFIG_FILE_NAME);
+		// GIVEN a .clangd file written by the manager:
+		manager.setCompilationDatabase(project, RELATIVE_DIR_PATH_BUILD_DEBUG);
+		var stamp = configFile.getModificationStamp();
+		// WHEN the same path is set again:
+		manager.setCompilationDatabase(project, RELATIVE_DIR_PATH_BUILD_DEBUG);
+		// THEN the file has not been touched:
+		assertEquals(stamp, configFile.getModificationStamp());
+		// AND a file changed by the user is updated again:
+		configFile = createConfigFile(DEFAULT_CDB_SETTING, RELATIVE_DIR_PATH_BUILD_DEFAULT);
+		manager.setCompilationDatabase(project, RELATIVE_DIR_PATH_BUILD_DEBUG);
+		try (var inputStream = configFile.getContents()) {
+			assertEquals(String.format(DEFAULT_CDB_SETTING, RELATIVE_DIR_PATH_BUILD_DEBUG),
+					new String(inputStream.readAllBytes()));
+		}
+	}
+
+	/**
+	 * Test whether the permissions of an existing .clangd file are kept when it is replaced.
+	 *
+	 * @throws IOException
+	 * @throws CoreException
+	 */
+	@Test
+	void testPermissionsAreKept() throws IOException, CoreException {
+		// GIVEN an existing .clangd file readable by everyone:
+		var configFile = createConfigFile(DEFAULT_CDB_SETTING, RELATIVE_DIR_PATH_BUILD_DEFAULT);
+		var path = configFile.getLocation().toFile().toPath();
+		assumeTrue(Files.getFileStore(path).supportsFileAttributeView(PosixFileAttributeView.class));
+		var permissions = PosixFilePermissions.fromString("rw-r--r--");
+		Files.setPosixFilePermissions(path, permissions);
+		// WHEN it is replaced with a new cdb path:
+		((ClangdConfigurationFileManager) clangdConfigurationManager).setCompilationDatabase(project,
+				RELATIVE_DIR_PATH_BUILD_DEBUG);
+		// THEN the permissions have not been changed:
+		try (var inputStream = configFile.getContents()) {
+			assertEquals(String.format(DEFAULT_CDB_SETTING, RELATIVE_DIR_PATH_BUILD_DEBUG),
+					new String(inputStream.readAllBytes()));
+		}
+		assertEquals(permissions, Files.getPosixFilePermissions(path));
+	}
+
 	/**
 	 * Test whether a ScannerException will be thrown if the file contains invalid yaml syntax (here: tab)
 	 *
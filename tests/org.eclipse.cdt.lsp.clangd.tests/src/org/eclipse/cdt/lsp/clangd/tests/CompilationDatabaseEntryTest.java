@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.clangd.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.cdt.lsp.clangd.internal.config.CompilationDatabaseEntry;
+import org.junit.jupiter.api.Test;
+
+final class CompilationDatabaseEntryTest {
+
+	@Test
+	void testArguments() throws IOException {
+		var entries = read("""
+				[{"directory": "/src", "file": "a.c", "arguments": ["gcc", "-DNAME=\\"a b\\"", "a.c"]}]
+				""");
+		assertEquals(List.of(new CompilationDatabaseEntry("/src", "a.c", List.of("gcc", "-DNAME=\"a b\"", "a.c"))),
+				entries);
+	}
+
+	@Test
+	void testPosixCommand() {
+		assertEquals(List.of("gcc", "-DNAME=a b", "-I/x y", "-DQ=\"q\"", "a b.c", "-o", "out.o"),
+				CompilationDatabaseEntry.split(" gcc  -DNAME=\"a b\" -I'/x y' -DQ=\\\"q\\\" a\\ b.c -o out.o ", false));
+	}
+
+	@Test
+	void testWindowsCommand() {
+		assertEquals(List.of("cl.exe", "/IC:\\Program Files\\x", "C:\\src\\a.c", "-DX=\"q\"", "a\\"),
+				CompilationDatabaseEntry.split(
+						"cl.exe /I\"C:\\Program Files\\x\" C:\\src\\a.c -DX=\\\"q\\\" \"a\\\\\"", true));
+	}
+
+	@Test
+	void testEmptyCommand() {
+		assertEquals(List.of(), CompilationDatabaseEntry.split("  ", false));
+	}
+
+	private static List<CompilationDatabaseEntry> read(String database) throws IOException {
+		List<CompilationDatabaseEntry> entries = new ArrayList<>();
+		CompilationDatabaseEntry.read(new ByteArrayInputStream(database.getBytes(StandardCharsets.UTF_8)),
+				entries::add);
+		return entries;
+	}
+
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.clangd.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.cdt.lsp.clangd.internal.config.CompilationDatabaseEntry;
+import org.eclipse.cdt.lsp.clangd.internal.config.CompilationDatabaseFingerprint;
+import org.junit.jupiter.api.Test;
+
+final class CompilationDatabaseFingerprintTest {
+	private static final String MAIN = "{\"directory\": \"/build\", \"file\": \"/src/main.cpp\", \"arguments\": [\"g++\", \"-c\", \"/src/main.cpp\"], \"output\": \"main.o\"}";
+	private static final String UTIL = "{\"directory\": \"/build\", \"file\": \"/src/util.cpp\", \"command\": \"g++ -c /src/util.cpp\"}";
+
+	@Test
+	void testSameEntriesInOtherOrderAndFormat() throws IOException {
+		var expected = fingerprint("[" + MAIN + "," + UTIL + "]");
+		var reordered = fingerprint("[\n  " + UTIL + ",\n  " + MAIN.replace(", \"output\": \"main.o\"", "") + "\n]\n");
+		assertEquals(expected, reordered);
+		assertEquals(2, expected.entries());
+	}
+
+	@Test
+	void testCommandEqualsArguments() throws IOException {
+		var command = fingerprint("[" + UTIL + "]");
+		var arguments = fingerprint(
+				"[{\"file\": \"/src/util.cpp\", \"arguments\": [\"g++\", \"-c\", \"/src/util.cpp\"], \"directory\": \"/build\"}]");
+		assertEquals(command, arguments);
+	}
+
+	@Test
+	void testChangedArguments() throws IOException {
+		var expected = fingerprint("[" + MAIN + "," + UTIL + "]");
+		assertNotEquals(expected, fingerprint("[" + MAIN.replace("-c", "-DNDEBUG\", \"-c") + "," + UTIL + "]"));
+		assertNotEquals(expected, fingerprint("[" + MAIN + "]"));
+		assertNotEquals(expected, fingerprint("[" + MAIN + "," + UTIL + "," + UTIL + "]"));
+	}
+
+	@Test
+	void testEntries() throws IOException {
+		var entries = new ArrayList<CompilationDatabaseEntry>();
+		CompilationDatabaseEntry.read(new ByteArrayInputStream(
+				("[" + UTIL.replace("/src/util.cpp\",", "../src/util.cpp\",") + "]").getBytes(StandardCharsets.UTF_8)),
+				entries::add);
+		assertEquals(1, entries.size());
+		assertEquals(List.of("g++", "-c", "/src/util.cpp"), entries.get(0).arguments());
+		assertEquals(Path.of("/src/util.cpp").toString(), entries.get(0).path());
+	}
+
+	@Test
+	void testInvalidContent() {
+		assertThrows(IOException.class, () -> fingerprint("{}"));
+		assertThrows(IOException.class, () -> fingerprint("[" + MAIN));
+	}
+
+	@Test
+	void testLargeDatabaseIsStreamed() throws IOException {
+		int entries = 200_000;
+		// about 40 MB of entries, generated while they are read:
+		var input = new InputStream() {
+			private byte[] current = "[".getBytes(StandardCharsets.UTF_8);
+			private int position;
+			private int next;
+
+			@Override
+			public int read() {
+				while (position == current.length) {
+					if (next > entries) {
+						return -1;
+					}
+					var entry = next == entries ? "]"
+							: (next > 0 ? "," : "") + MAIN.replace("main", "main" + next)
+									+ " ".repeat(100);
+					current = entry.getBytes(StandardCharsets.UTF_8);
+					position = 0;
+					next++;
+				}
+				return current[position++];
+			}
+		};
+		assertEquals(entries, CompilationDatabaseFingerprint.of(input).entries());
+	}
+
+	private static CompilationDatabaseFingerprint fingerprint(String content) throws IOException {
+		return CompilationDatabaseFingerprint.of(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+	}
+
+}
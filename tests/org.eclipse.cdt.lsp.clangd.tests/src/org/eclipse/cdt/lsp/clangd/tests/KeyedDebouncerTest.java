@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.clangd.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.cdt.lsp.clangd.internal.config.KeyedDebouncer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+final class KeyedDebouncerTest {
+	private final List<Set<String>> runs = new ArrayList<>();
+	private KeyedDebouncer<String> debouncer;
+
+	@AfterEach
+	void stop() {
+		if (debouncer != null) {
+			debouncer.stop();
+		}
+	}
+
+	@Test
+	void testRequestsOfOneKeyAreCoalesced() throws InterruptedException {
+		var done = new CountDownLatch(1);
+		start(100, 5000, done);
+		for (int i = 0; i < 5; i++) {
+			debouncer.schedule("a");
+		}
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of(Set.of("a")), runs());
+		var metrics = debouncer.metrics();
+		assertEquals(5, metrics.requests());
+		assertEquals(4, metrics.coalesced());
+		assertEquals(1, metrics.handled());
+		assertEquals(1, metrics.runs());
+	}
+
+	@Test
+	void testKeysOfOneEventAreBatched() throws InterruptedException {
+		var done = new CountDownLatch(1);
+		start(100, 5000, done);
+		debouncer.schedule("a");
+		debouncer.schedule("b");
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of(Set.of("a", "b")), runs());
+	}
+
+	@Test
+	void testOtherKeysAreNotPostponed() throws InterruptedException {
+		var done = new CountDownLatch(1);
+		start(200, 60_000, done);
+		debouncer.schedule("b");
+		// a steady stream of requests for "a" must not postpone "b":
+		long end = System.currentTimeMillis() + 5000;
+		while (done.getCount() > 0 && System.currentTimeMillis() < end) {
+			debouncer.schedule("a");
+			Thread.sleep(20);
+		}
+		assertEquals(0, done.getCount());
+		assertEquals(List.of(Set.of("b")), runs());
+	}
+
+	@Test
+	void testMaximumWait() throws InterruptedException {
+		var done = new CountDownLatch(1);
+		start(200, 500, done);
+		long end = System.currentTimeMillis() + 5000;
+		while (done.getCount() > 0 && System.currentTimeMillis() < end) {
+			debouncer.schedule("a");
+			Thread.sleep(20);
+		}
+		assertEquals(0, done.getCount());
+		assertTrue(debouncer.metrics().maxLatency() >= 500);
+	}
+
+	@Test
+	void testCancel() throws InterruptedException {
+		var done = new CountDownLatch(1);
+		start(100, 5000, done);
+		debouncer.schedule("a");
+		debouncer.cancel("a");
+		debouncer.schedule("b");
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of(Set.of("b")), runs());
+	}
+
+	@Test
+	void testRunningActionIsNotInterrupted() throws InterruptedException {
+		var started = new CountDownLatch(1);
+		var release = new CountDownLatch(1);
+		var finished = new CountDownLatch(2);
+		List<Boolean> interrupted = new ArrayList<>();
+		debouncer = new KeyedDebouncer<>("test", 50, 5000, keys -> {
+			started.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			synchronized (interrupted) {
+				interrupted.add(Thread.currentThread().isInterrupted());
+			}
+			finished.countDown();
+		});
+		debouncer.start();
+		debouncer.schedule("a");
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		debouncer.schedule("a");
+		release.countDown();
+		assertTrue(finished.await(5, TimeUnit.SECONDS));
+		synchronized (interrupted) {
+			assertEquals(List.of(false, false), interrupted);
+		}
+	}
+
+	@Test
+	void testNotStarted() throws InterruptedException {
+		debouncer = new KeyedDebouncer<>("test", 10, 100, runs::add);
+		debouncer.schedule("a");
+		Thread.sleep(200);
+		assertTrue(runs().isEmpty());
+		assertEquals(0, debouncer.metrics().requests());
+	}
+
+	private void start(long delay, long maxWait, CountDownLatch done) {
+		debouncer = new KeyedDebouncer<>("test", delay, maxWait, keys -> {
+			synchronized (runs) {
+				runs.add(Set.copyOf(keys));
+			}
+			done.countDown();
+		});
+		debouncer.start();
+	}
+
+	private List<Set<String>> runs() {
+		synchronized (runs) {
+			return List.copyOf(runs);
+		}
+	}
+
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   See git history
+ *******************************************************************************/
+
+package org.eclipse.cdt.lsp.clangd.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.eclipse.cdt.lsp.clangd.internal.config.ResourceDeltaDispatcher;
+import org.eclipse.cdt.lsp.clangd.internal.config.ResourceDeltaDispatcher.FileChange;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+final class ResourceDeltaDispatcherTest {
+	private static final String NAME = "compile_commands.json";
+
+	private final ResourceDeltaDispatcher dispatcher = ResourceDeltaDispatcher.of(ResourcesPlugin.getWorkspace());
+	private final BlockingQueue<FileChange> sources = new LinkedBlockingQueue<>();
+	private final BlockingQueue<FileChange> all = new LinkedBlockingQueue<>();
+	private final Consumer<List<FileChange>> sourcesConsumer = sources::addAll;
+	private final Consumer<List<FileChange>> allConsumer = all::addAll;
+	private IProject project;
+
+	@BeforeEach
+	void setUp(TestInfo testInfo) throws CoreException {
+		project = TestUtils.createCProject(TestUtils.getName(testInfo));
+		dispatcher.register(Set.of(NAME), false, sourcesConsumer);
+		dispatcher.register(Set.of(NAME, ".clangd"), true, allConsumer);
+	}
+
+	@AfterEach
+	void cleanUp() throws CoreException {
+		dispatcher.unregister(sourcesConsumer);
+		dispatcher.unregister(allConsumer);
+		TestUtils.deleteProject(project);
+	}
+
+	@Test
+	void testMatchingNames() throws CoreException, InterruptedException {
+		var file = create(project.getFile(NAME));
+		project.getFile("other.json").create(new ByteArrayInputStream(new byte[0]), true, null);
+		assertEquals(new FileChange(file, IResourceDelta.ADDED, 0), withoutFlags(sources.poll(5, TimeUnit.SECONDS)));
+		assertEquals(new FileChange(file, IResourceDelta.ADDED, 0), withoutFlags(all.poll(5, TimeUnit.SECONDS)));
+
+		file.setContents(new ByteArrayInputStream("[]".getBytes()), true, false, null);
+		var change = sources.poll(5, TimeUnit.SECONDS);
+		assertNotNull(change);
+		assertEquals(IResourceDelta.CONTENT, change.flags() & IResourceDelta.CONTENT);
+
+		file.delete(true, null);
+		assertEquals(IResourceDelta.REMOVED, sources.poll(5, TimeUnit.SECONDS).kind());
+		all.clear();
+		assertNull(sources.poll(500, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void testDerivedFolder() throws CoreException, InterruptedException {
+		var build = project.getFolder("build");
+		build.create(IResource.DERIVED, true, new NullProgressMonitor());
+		var file = create(build.getFile(NAME));
+		assertEquals(new FileChange(file, IResourceDelta.ADDED, 0), withoutFlags(all.poll(5, TimeUnit.SECONDS)));
+		assertNull(sources.poll(500, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void testBuildConfigurationFolder() throws CoreException, InterruptedException {
+		// core build projects write the database into a folder per build configuration:
+		var build = project.getFolder("build");
+		build.create(IResource.DERIVED, true, new NullProgressMonitor());
+		var configuration = build.getFolder("default");
+		configuration.create(true, true, new NullProgressMonitor());
+		var file = create(configuration.getFile(NAME));
+		assertEquals(new FileChange(file, IResourceDelta.ADDED, 0), withoutFlags(all.poll(5, TimeUnit.SECONDS)));
+		assertNull(sources.poll(500, TimeUnit.MILLISECONDS));
+
+		file.setContents(new ByteArrayInputStream("[]".getBytes()), true, false, null);
+		var change = all.poll(5, TimeUnit.SECONDS);
+		assertNotNull(change);
+		assertEquals(IResourceDelta.CONTENT, change.flags() & IResourceDelta.CONTENT);
+	}
+
+	@Test
+	void testMarkerChangesAreIgnored() throws CoreException, InterruptedException {
+		var file = create(project.getFile(".clangd"));
+		assertNotNull(all.poll(5, TimeUnit.SECONDS));
+		file.createMarker(IMarker.PROBLEM);
+		assertNull(all.poll(500, TimeUnit.MILLISECONDS));
+	}
+
+	private static IFile create(IFile file) throws CoreException {
+		file.create(new ByteArrayInputStream(new byte[0]), true, new NullProgressMonitor());
+		return file;
+	}
+
+	private static FileChange withoutFlags(FileChange change) {
+		return change == null ? null : new FileChange(change.file(), change.kind(), 0);
+	}
+
+}